@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.runner.RunnerException;
+
+/**
+ * Runs JMH benchmarks and writes results in JSON format to
+ * {@value #DEFAULT_RESULT_FILE} unless another result format or file is
+ * specified in command line. All JMH command line options are supported.
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class BenchmarkRunner {
+
+	/** The default file with benchmark results. */
+	public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+	/**
+	 * @param args
+	 *            the JMH command line options.
+	 * @throws RunnerException
+	 *             if benchmarks failed.
+	 * @throws IOException
+	 *             if results couldn't be written.
+	 */
+	public static void main(String[] args) throws RunnerException, IOException {
+		List<String> arguments = new ArrayList<>(Arrays.asList(args));
+		if (!arguments.contains("-rf")) {
+			arguments.add("-rf");
+			arguments.add("json");
+		}
+		if (!arguments.contains("-rff")) {
+			arguments.add("-rff");
+			arguments.add(DEFAULT_RESULT_FILE);
+		}
+		Main.main(arguments.toArray(new String[0]));
+	}
+
+}
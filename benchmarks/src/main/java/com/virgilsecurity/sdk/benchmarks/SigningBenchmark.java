@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.virgilsecurity.sdk.crypto.KeyPair;
+import com.virgilsecurity.sdk.crypto.VirgilCrypto;
+
+/**
+ * Benchmarks for {@link VirgilCrypto} signing and verification.
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SigningBenchmark {
+
+	@Param({ "64", "1024", "65536", "1048576", "67108864" })
+	private int payloadSize;
+
+	private VirgilCrypto crypto;
+
+	private byte[] data;
+
+	private KeyPair signerKeys;
+
+	private KeyPair recipientKeys;
+
+	private byte[] signature;
+
+	private byte[] signedAndEncryptedData;
+
+	@Setup
+	public void setUp() {
+		crypto = new VirgilCrypto();
+
+		data = new byte[payloadSize];
+		new Random(payloadSize).nextBytes(data);
+
+		signerKeys = crypto.generateKeys();
+		recipientKeys = crypto.generateKeys();
+
+		signature = crypto.sign(data, signerKeys.getPrivateKey());
+		signedAndEncryptedData = crypto.signThenEncrypt(data, signerKeys.getPrivateKey(),
+				recipientKeys.getPublicKey());
+	}
+
+	@TearDown
+	public void tearDown() {
+		crypto.close();
+	}
+
+	@Benchmark
+	public byte[] sign() {
+		return crypto.sign(data, signerKeys.getPrivateKey());
+	}
+
+	@Benchmark
+	public boolean verify() {
+		return crypto.verify(data, signature, signerKeys.getPublicKey());
+	}
+
+	@Benchmark
+	public byte[] signThenEncrypt() {
+		return crypto.signThenEncrypt(data, signerKeys.getPrivateKey(), recipientKeys.getPublicKey());
+	}
+
+	@Benchmark
+	public byte[] decryptThenVerify() {
+		return crypto.decryptThenVerify(signedAndEncryptedData, recipientKeys.getPrivateKey(),
+				signerKeys.getPublicKey());
+	}
+
+}
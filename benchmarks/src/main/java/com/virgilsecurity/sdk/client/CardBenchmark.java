@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.client;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.virgilsecurity.sdk.client.model.Card;
+import com.virgilsecurity.sdk.client.model.CardScope;
+import com.virgilsecurity.sdk.client.model.dto.CreateCardModel;
+import com.virgilsecurity.sdk.client.model.dto.SignedResponseMetaModel;
+import com.virgilsecurity.sdk.client.model.dto.SignedResponseModel;
+import com.virgilsecurity.sdk.client.utils.ConvertionUtils;
+import com.virgilsecurity.sdk.client.utils.VirgilCardValidator;
+import com.virgilsecurity.sdk.crypto.KeyPair;
+import com.virgilsecurity.sdk.crypto.VirgilCrypto;
+
+/**
+ * Benchmarks for {@link VirgilClient} response parsing and
+ * {@link VirgilCardValidator} validation.
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CardBenchmark {
+
+	private static final String SERVICE_CARD_ID = "3e29d43373348cfb373b7eae189214dc01d7237765e572db685839b64adca853";
+	private static final String APP_CARD_ID = "app";
+
+	private VirgilCrypto crypto;
+
+	private SignedResponseModel responseModel;
+
+	private Card card;
+
+	private VirgilCardValidator validator;
+
+	@Setup
+	public void setUp() {
+		crypto = new VirgilCrypto();
+		KeyPair cardKeys = crypto.generateKeys();
+		KeyPair serviceKeys = crypto.generateKeys();
+		KeyPair appKeys = crypto.generateKeys();
+
+		CreateCardModel model = new CreateCardModel();
+		model.setIdentity("alice");
+		model.setIdentityType("username");
+		model.setPublicKey(ConvertionUtils.toBase64String(crypto.exportPublicKey(cardKeys.getPublicKey())));
+		model.setScope(CardScope.APPLICATION);
+		Map<String, String> data = new HashMap<>();
+		data.put("key", "value");
+		model.setData(data);
+		byte[] snapshot = ConvertionUtils.toBytes(ConvertionUtils.getGson().toJson(model));
+
+		byte[] fingerprint = crypto.calculateFingerprint(snapshot).getValue();
+		Map<String, String> signatures = new HashMap<>();
+		signatures.put(SERVICE_CARD_ID,
+				ConvertionUtils.toBase64String(crypto.sign(fingerprint, serviceKeys.getPrivateKey())));
+		signatures.put(APP_CARD_ID, ConvertionUtils.toBase64String(crypto.sign(fingerprint, appKeys.getPrivateKey())));
+
+		SignedResponseMetaModel meta = new SignedResponseMetaModel();
+		meta.setCreatedAt(new Date());
+		meta.setVersion("4.0");
+		meta.setSignatures(signatures);
+
+		responseModel = new SignedResponseModel();
+		responseModel.setCardId("benchmark-card");
+		responseModel.setContentSnapshot(ConvertionUtils.toBase64String(snapshot));
+		responseModel.setMeta(meta);
+
+		card = VirgilClient.responseToCard(responseModel);
+
+		// Replace service key with generated one, so the card is valid
+		validator = new VirgilCardValidator(crypto);
+		validator.addVerifier(SERVICE_CARD_ID, crypto.exportPublicKey(serviceKeys.getPublicKey()));
+		validator.addVerifier(APP_CARD_ID, crypto.exportPublicKey(appKeys.getPublicKey()));
+		if (!validator.validate(card)) {
+			throw new IllegalStateException("Card is not valid");
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		crypto.close();
+	}
+
+	@Benchmark
+	public Card responseToCard() {
+		return VirgilClient.responseToCard(responseModel);
+	}
+
+	@Benchmark
+	public boolean validate() {
+		return validator.validate(card);
+	}
+
+}
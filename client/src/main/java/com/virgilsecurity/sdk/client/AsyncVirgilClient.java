@@ -0,0 +1,368 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.client;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.virgilsecurity.sdk.client.model.Card;
+import com.virgilsecurity.sdk.client.model.dto.SearchCriteria;
+import com.virgilsecurity.sdk.client.requests.CreateCardRequest;
+import com.virgilsecurity.sdk.client.requests.RevokeCardRequest;
+import com.virgilsecurity.sdk.crypto.exceptions.NullArgumentException;
+
+/**
+ * Asynchronous version of {@link VirgilClient}. Requests, response parsing and
+ * cards validation are performed by executor, so the calling thread is never
+ * blocked.
+ * 
+ * <p>
+ * The number of requests being processed in parallel is limited by executor
+ * size and by the client's connection pool size (see
+ * {@link VirgilClientContext#setMaxConnectionsPerRoute(int)}). By default
+ * both are equal to the maximum number of connections per route, which is 10,
+ * and other requests wait in the executor queue. Use
+ * {@link #AsyncVirgilClient(VirgilClientContext, int)} to run more requests
+ * in parallel.
+ * </p>
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class AsyncVirgilClient implements Closeable {
+
+	// Time in milliseconds given to requests in progress on close
+	private static final long CLOSE_TIMEOUT = 30000;
+
+	private VirgilClient client;
+
+	private ExecutorService executor;
+
+	private boolean ownResources;
+
+	/**
+	 * Create a new instance of {@code AsyncVirgilClient} with its own
+	 * {@link VirgilClient} and executor. The number of executor threads is
+	 * equal to the maximum number of connections per route.
+	 *
+	 * @param context
+	 *            the virgil client context.
+	 */
+	public AsyncVirgilClient(VirgilClientContext context) {
+		this(context, (context == null) ? 0 : context.getMaxConnectionsPerRoute());
+	}
+
+	/**
+	 * Create a new instance of {@code AsyncVirgilClient} with its own
+	 * {@link VirgilClient} and executor which run up to {@code concurrency}
+	 * requests in parallel. The client uses a copy of the context with
+	 * connection limits raised to {@code concurrency} per service address, if
+	 * they are lower. The given context is not changed.
+	 *
+	 * @param context
+	 *            the virgil client context.
+	 * @param concurrency
+	 *            the maximum number of requests in flight.
+	 */
+	public AsyncVirgilClient(VirgilClientContext context, int concurrency) {
+		if (context == null) {
+			throw new NullArgumentException("context");
+		}
+		if (concurrency <= 0) {
+			throw new IllegalArgumentException("concurrency");
+		}
+		VirgilClientContext clientContext = copyContext(context);
+		if (clientContext.getMaxConnectionsPerRoute() < concurrency) {
+			clientContext.setMaxConnectionsPerRoute(concurrency);
+		}
+		// Cards and read-only cards services are different routes
+		if (clientContext.getMaxConnectionsTotal() < 2 * concurrency) {
+			clientContext.setMaxConnectionsTotal(2 * concurrency);
+		}
+		this.client = new VirgilClient(clientContext);
+		this.executor = Executors.newFixedThreadPool(concurrency, new ClientThreadFactory("virgil-client"));
+		this.ownResources = true;
+	}
+
+	/**
+	 * Create a new instance of {@code AsyncVirgilClient}. Both client and
+	 * executor are owned by caller and are not closed by {@link #close()}.
+	 *
+	 * @param client
+	 *            the virgil client which performs requests.
+	 * @param executor
+	 *            the executor which runs requests, parses responses and
+	 *            validates cards.
+	 */
+	public AsyncVirgilClient(VirgilClient client, ExecutorService executor) {
+		if (client == null) {
+			throw new NullArgumentException("client");
+		}
+		if (executor == null) {
+			throw new NullArgumentException("executor");
+		}
+		this.client = client;
+		this.executor = executor;
+		this.ownResources = false;
+	}
+
+	/**
+	 * Register a new card.
+	 * 
+	 * @param request
+	 *            the create card request.
+	 * @return the future of the created card.
+	 */
+	public Future<Card> createCard(CreateCardRequest request) {
+		return createCard(request, null);
+	}
+
+	/**
+	 * Register a new card.
+	 * 
+	 * @param request
+	 *            the create card request.
+	 * @param callback
+	 *            the callback to be notified on completion. Could be
+	 *            {@code null}.
+	 * @return the future of the created card.
+	 */
+	public Future<Card> createCard(final CreateCardRequest request, ResponseCallback<Card> callback) {
+		return submit(new Callable<Card>() {
+
+			@Override
+			public Card call() throws Exception {
+				return client.createCard(request);
+			}
+		}, callback);
+	}
+
+	/**
+	 * Get card by identifier.
+	 * 
+	 * @param cardId
+	 *            the card identifier.
+	 * @return the future of the card.
+	 */
+	public Future<Card> getCard(String cardId) {
+		return getCard(cardId, null);
+	}
+
+	/**
+	 * Get card by identifier.
+	 * 
+	 * @param cardId
+	 *            the card identifier.
+	 * @param callback
+	 *            the callback to be notified on completion. Could be
+	 *            {@code null}.
+	 * @return the future of the card.
+	 */
+	public Future<Card> getCard(final String cardId, ResponseCallback<Card> callback) {
+		return submit(new Callable<Card>() {
+
+			@Override
+			public Card call() throws Exception {
+				return client.getCard(cardId);
+			}
+		}, callback);
+	}
+
+	/**
+	 * Revoke existing card.
+	 * 
+	 * @param request
+	 *            the revoke card request.
+	 * @return the future which completes when card is revoked.
+	 */
+	public Future<Void> revokeCard(RevokeCardRequest request) {
+		return revokeCard(request, null);
+	}
+
+	/**
+	 * Revoke existing card.
+	 * 
+	 * @param request
+	 *            the revoke card request.
+	 * @param callback
+	 *            the callback to be notified on completion. Could be
+	 *            {@code null}.
+	 * @return the future which completes when card is revoked.
+	 */
+	public Future<Void> revokeCard(final RevokeCardRequest request, ResponseCallback<Void> callback) {
+		return submit(new Callable<Void>() {
+
+			@Override
+			public Void call() throws Exception {
+				client.revokeCard(request);
+				return null;
+			}
+		}, callback);
+	}
+
+	/**
+	 * Search cards by criteria.
+	 * 
+	 * @param criteria
+	 *            the criteria for search.
+	 * @return the future of the found cards list.
+	 */
+	public Future<List<Card>> searchCards(SearchCriteria criteria) {
+		return searchCards(criteria, null);
+	}
+
+	/**
+	 * Search cards by criteria.
+	 * 
+	 * @param criteria
+	 *            the criteria for search.
+	 * @param callback
+	 *            the callback to be notified on completion. Could be
+	 *            {@code null}.
+	 * @return the future of the found cards list.
+	 */
+	public Future<List<Card>> searchCards(final SearchCriteria criteria, ResponseCallback<List<Card>> callback) {
+		return submit(new Callable<List<Card>>() {
+
+			@Override
+			public List<Card> call() throws Exception {
+				return client.searchCards(criteria);
+			}
+		}, callback);
+	}
+
+	/**
+	 * Gets the underlying synchronous client.
+	 * 
+	 * @return the client.
+	 */
+	public VirgilClient getClient() {
+		return client;
+	}
+
+	/**
+	 * Shuts down the executor and the client if they were created by this
+	 * {@code AsyncVirgilClient}. Requests which are not started yet are
+	 * cancelled, so their futures throw {@link CancellationException} and
+	 * callbacks are notified with it. Requests in progress are completed
+	 * before the client is closed.
+	 * 
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() {
+		if (!this.ownResources) {
+			return;
+		}
+		// Don't interrupt requests in progress, just drop pending ones
+		this.executor.shutdown();
+		List<Runnable> pendingTasks = new ArrayList<>();
+		if (this.executor instanceof ThreadPoolExecutor) {
+			((ThreadPoolExecutor) this.executor).getQueue().drainTo(pendingTasks);
+		}
+		for (Runnable task : pendingTasks) {
+			if (task instanceof RequestTask) {
+				((RequestTask<?>) task).cancel(false);
+			}
+		}
+		try {
+			this.executor.awaitTermination(CLOSE_TIMEOUT, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		this.client.close();
+	}
+
+	private static VirgilClientContext copyContext(VirgilClientContext context) {
+		VirgilClientContext copy = new VirgilClientContext(context.getAccessToken());
+		copy.setCardsServiceAddress(context.getCardsServiceAddress());
+		copy.setReadOnlyCardsServiceAddress(context.getReadOnlyCardsServiceAddress());
+		copy.setIdentityServiceAddress(context.getIdentityServiceAddress());
+		copy.setMaxConnectionsTotal(context.getMaxConnectionsTotal());
+		copy.setMaxConnectionsPerRoute(context.getMaxConnectionsPerRoute());
+		copy.setConnectionTimeToLive(context.getConnectionTimeToLive());
+		copy.setMaxIdleTime(context.getMaxIdleTime());
+
+		return copy;
+	}
+
+	private <T> Future<T> submit(Callable<T> task, ResponseCallback<T> callback) {
+		RequestTask<T> future = new RequestTask<>(task, callback);
+		this.executor.execute(future);
+
+		return future;
+	}
+
+	/**
+	 * The future of a request which notifies callback on completion.
+	 */
+	private static class RequestTask<T> extends FutureTask<T> {
+		private final ResponseCallback<T> callback;
+
+		RequestTask(Callable<T> task, ResponseCallback<T> callback) {
+			super(task);
+			this.callback = callback;
+		}
+
+		@Override
+		protected void done() {
+			if (callback == null) {
+				return;
+			}
+			if (isCancelled()) {
+				callback.onFailure(new CancellationException("Request is cancelled"));
+				return;
+			}
+			T result;
+			try {
+				result = get();
+			} catch (ExecutionException e) {
+				callback.onFailure(e.getCause());
+				return;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				callback.onFailure(e);
+				return;
+			}
+			callback.onSuccess(result);
+		}
+	}
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.client;
+
+import java.util.List;
+
+import com.virgilsecurity.sdk.client.model.Card;
+import com.virgilsecurity.sdk.client.model.dto.SearchCriteria;
+
+/**
+ * A cache of Virgil Cards which is consulted by {@link VirgilClient} before
+ * requesting Virgil Cards Service. Only validated cards are put into cache.
+ * 
+ * <p>
+ * Implementations should be thread-safe.
+ * </p>
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public interface CardCache {
+
+	/**
+	 * Gets the cached card.
+	 * 
+	 * @param cardId
+	 *            the card identifier.
+	 * @return the cached card or {@code null} if there is no such card in
+	 *         cache.
+	 */
+	Card getCard(String cardId);
+
+	/**
+	 * Checks whether the card is known to be missing at Virgil Cards Service.
+	 * 
+	 * @param cardId
+	 *            the card identifier.
+	 * @return {@code true} if card was not found recently.
+	 */
+	boolean isCardMissing(String cardId);
+
+	/**
+	 * Puts the card into cache.
+	 * 
+	 * @param card
+	 *            the card to be cached.
+	 */
+	void putCard(Card card);
+
+	/**
+	 * Remembers that the card with specified identifier was not found.
+	 * 
+	 * @param cardId
+	 *            the card identifier.
+	 */
+	void putMissingCard(String cardId);
+
+	/**
+	 * Gets the cached search result.
+	 * 
+	 * @param criteria
+	 *            the search criteria.
+	 * @return the cards found by criteria or {@code null} if there is no
+	 *         cached result for the criteria.
+	 */
+	List<Card> getSearchResult(SearchCriteria criteria);
+
+	/**
+	 * Puts the search result into cache.
+	 * 
+	 * @param criteria
+	 *            the search criteria.
+	 * @param cards
+	 *            the cards found by criteria.
+	 */
+	void putSearchResult(SearchCriteria criteria, List<Card> cards);
+
+	/**
+	 * Removes the card and all search results which contain the card.
+	 * 
+	 * @param cardId
+	 *            the card identifier.
+	 */
+	void removeCard(String cardId);
+
+	/**
+	 * Removes all search results by the identity.
+	 * 
+	 * @param identity
+	 *            the identity.
+	 */
+	void removeSearchResults(String identity);
+
+	/**
+	 * Removes all entries from cache.
+	 */
+	void clear();
+
+}
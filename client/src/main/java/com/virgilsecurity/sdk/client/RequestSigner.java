@@ -29,11 +29,15 @@
  */
 package com.virgilsecurity.sdk.client;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.virgilsecurity.sdk.client.requests.SignedRequest;
 import com.virgilsecurity.sdk.client.utils.ConvertionUtils;
 import com.virgilsecurity.sdk.crypto.Crypto;
 import com.virgilsecurity.sdk.crypto.Fingerprint;
 import com.virgilsecurity.sdk.crypto.PrivateKey;
+import com.virgilsecurity.sdk.crypto.VirgilCrypto;
 
 /**
  * This class used for request signing.
@@ -89,4 +93,72 @@ public class RequestSigner {
 		request.appendSignature(appdId, ConvertionUtils.toBase64String(signature));
 	}
 
+	/**
+	 * Sign requests with a key. Requests are signed as a batch by
+	 * {@linkplain VirgilCrypto}, so it's faster than signing requests one by
+	 * one.
+	 * 
+	 * @param requests
+	 *            the requests to be signed.
+	 * @param privateKey
+	 *            the private key.
+	 */
+	public void selfSign(List<? extends SignedRequest> requests, PrivateKey privateKey) {
+		List<Fingerprint> fingerprints = calculateFingerprints(requests);
+		List<byte[]> signatures = sign(getValues(fingerprints), privateKey);
+
+		for (int i = 0; i < requests.size(); i++) {
+			requests.get(i).appendSignature(fingerprints.get(i).toHex(),
+					ConvertionUtils.toBase64String(signatures.get(i)));
+		}
+	}
+
+	/**
+	 * Sign requests with authority key. Requests are signed as a batch by
+	 * {@linkplain VirgilCrypto}, so it's faster than signing requests one by
+	 * one.
+	 * 
+	 * @param requests
+	 *            the requests to be signed.
+	 * @param appdId
+	 *            the application id.
+	 * @param appKey
+	 *            the application key.
+	 */
+	public void authoritySign(List<? extends SignedRequest> requests, String appdId, PrivateKey appKey) {
+		List<Fingerprint> fingerprints = calculateFingerprints(requests);
+		List<byte[]> signatures = sign(getValues(fingerprints), appKey);
+
+		for (int i = 0; i < requests.size(); i++) {
+			requests.get(i).appendSignature(appdId, ConvertionUtils.toBase64String(signatures.get(i)));
+		}
+	}
+
+	private List<byte[]> sign(List<byte[]> data, PrivateKey privateKey) {
+		if (this.crypto instanceof VirgilCrypto) {
+			return ((VirgilCrypto) this.crypto).signBatch(data, privateKey);
+		}
+		List<byte[]> signatures = new ArrayList<>(data.size());
+		for (byte[] item : data) {
+			signatures.add(this.crypto.sign(item, privateKey));
+		}
+		return signatures;
+	}
+
+	private List<Fingerprint> calculateFingerprints(List<? extends SignedRequest> requests) {
+		List<Fingerprint> fingerprints = new ArrayList<>(requests.size());
+		for (SignedRequest request : requests) {
+			fingerprints.add(this.crypto.calculateFingerprint(ConvertionUtils.base64ToArray(request.getSnapshot())));
+		}
+		return fingerprints;
+	}
+
+	private static List<byte[]> getValues(List<Fingerprint> fingerprints) {
+		List<byte[]> values = new ArrayList<>(fingerprints.size());
+		for (Fingerprint fingerprint : fingerprints) {
+			values.add(fingerprint.getValue());
+		}
+		return values;
+	}
+
 }
@@ -29,15 +29,33 @@
  */
 package com.virgilsecurity.sdk.client;
 
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpStatus;
@@ -50,9 +68,16 @@ import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
 
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
 import com.virgilsecurity.sdk.client.exceptions.CardValidationException;
+import com.virgilsecurity.sdk.client.exceptions.GetCardsException;
 import com.virgilsecurity.sdk.client.exceptions.VirgilCardServiceException;
 import com.virgilsecurity.sdk.client.exceptions.VirgilIdentityServiceException;
 import com.virgilsecurity.sdk.client.exceptions.VirgilServiceException;
@@ -75,15 +100,27 @@ import com.virgilsecurity.sdk.crypto.exceptions.EmptyArgumentException;
 import com.virgilsecurity.sdk.crypto.exceptions.NullArgumentException;
 
 /**
+ * The Virgil Services client. All requests share a pool of keep-alive
+ * connections, so the client should be reused and {@linkplain #close()
+ * closed} when it is no longer needed.
+ * 
  * @author Andrii Iakovenko
  *
  */
-public class VirgilClient {
+public class VirgilClient implements Closeable {
+
+	private static final Charset UTF8_CHARSET = Charset.forName("UTF-8");
 
 	private VirgilClientContext context;
 
 	private CardValidator cardValidator;
 
+	private CardCache cardCache;
+
+	private CloseableHttpClient httpClient;
+
+	private ExecutorService batchExecutor;
+
 	/**
 	 * Create a new instance of {@code VirgilClient}
 	 *
@@ -91,7 +128,7 @@ public class VirgilClient {
 	 *            the access token.
 	 */
 	public VirgilClient(String accessToken) {
-		this.context = new VirgilClientContext(accessToken);
+		this(new VirgilClientContext(accessToken));
 	}
 
 	/**
@@ -102,6 +139,7 @@ public class VirgilClient {
 	 */
 	public VirgilClient(VirgilClientContext context) {
 		this.context = context;
+		this.httpClient = createHttpClient(context);
 	}
 
 	/**
@@ -195,7 +233,13 @@ public class VirgilClient {
 			postRequest.setEntity(new StringEntity(body));
 
 			SignedResponseModel responseModel = execute(postRequest, SignedResponseModel.class);
-			return responseToCard(responseModel);
+			Card card = responseToCard(responseModel);
+
+			if (this.cardCache != null) {
+				this.cardCache.removeSearchResults(card.getIdentity());
+			}
+
+			return card;
 
 		} catch (Exception e) {
 			throw new VirgilCardServiceException(e);
@@ -207,21 +251,34 @@ public class VirgilClient {
 	 * 
 	 * @param cardId
 	 *            the card identifier.
-	 * @return the card.
+	 * @return the card or {@code null} if card not found.
 	 */
 	public Card getCard(String cardId) {
-		URIBuilder builder;
-		try {
-			builder = new URIBuilder(context.getReadOnlyCardsServiceAddress());
-			builder.setPath("/v4/card/" + cardId);
+		if (this.cardCache != null) {
+			Card card = this.cardCache.getCard(cardId);
+			if (card != null) {
+				return card;
+			}
+			if (this.cardCache.isCardMissing(cardId)) {
+				return null;
+			}
+		}
 
-			HttpGet postRequest = (HttpGet) createRequest(HttpGet.METHOD_NAME);
-			postRequest.setURI(builder.build());
+		try {
+			Card card = loadCard(cardId);
+			if (card == null) {
+				if (this.cardCache != null) {
+					this.cardCache.putMissingCard(cardId);
+				}
+				return null;
+			}
 
-			SignedResponseModel responseModel = execute(postRequest, SignedResponseModel.class);
-			Card card = responseToCard(responseModel);
 			validateCards(Arrays.asList(card));
 
+			if (this.cardCache != null) {
+				this.cardCache.putCard(card);
+			}
+
 			return card;
 
 		} catch (Exception e) {
@@ -229,6 +286,149 @@ public class VirgilClient {
 		}
 	}
 
+	/**
+	 * Get cards by identifiers. Duplicated identifiers are requested once.
+	 * Cards are requested in parallel, the number of parallel requests is
+	 * limited by {@link VirgilClientContext#getMaxConnectionsPerRoute()}. All
+	 * loaded cards are validated at once.
+	 * 
+	 * @param cardIds
+	 *            the card identifiers.
+	 * @return the found cards by card identifier. Cards which are not found
+	 *         are not included.
+	 * @throws GetCardsException
+	 *             if one or more cards couldn't be loaded or didn't pass the
+	 *             validation. The exception contains successfully loaded
+	 *             cards, and errors are {@link VirgilCardServiceException}s
+	 *             as thrown by {@link #getCard(String)}.
+	 */
+	public Map<String, Card> getCards(Collection<String> cardIds) {
+		if (cardIds == null) {
+			throw new NullArgumentException("cardIds");
+		}
+
+		Set<String> ids = new LinkedHashSet<>(cardIds);
+		Map<String, Card> foundCards = new HashMap<>();
+		List<String> idsToLoad = new ArrayList<>();
+		for (String cardId : ids) {
+			if (this.cardCache != null) {
+				Card card = this.cardCache.getCard(cardId);
+				if (card != null) {
+					foundCards.put(cardId, card);
+					continue;
+				}
+				if (this.cardCache.isCardMissing(cardId)) {
+					continue;
+				}
+			}
+			idsToLoad.add(cardId);
+		}
+
+		Map<String, Card> loadedCards = new HashMap<>();
+		Map<String, Exception> errors = new HashMap<>();
+		if (!idsToLoad.isEmpty()) {
+			ExecutorService executor = getBatchExecutor();
+			List<Future<Card>> futures = new ArrayList<>(idsToLoad.size());
+			for (final String cardId : idsToLoad) {
+				futures.add(executor.submit(new Callable<Card>() {
+
+					@Override
+					public Card call() throws Exception {
+						return loadCard(cardId);
+					}
+				}));
+			}
+
+			for (int i = 0; i < idsToLoad.size(); i++) {
+				String cardId = idsToLoad.get(i);
+				try {
+					Card card = futures.get(i).get();
+					if (card != null) {
+						loadedCards.put(cardId, card);
+					} else if (this.cardCache != null) {
+						this.cardCache.putMissingCard(cardId);
+					}
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof Error) {
+						throw (Error) cause;
+					}
+					errors.put(cardId, (Exception) cause);
+				} catch (InterruptedException e) {
+					for (Future<Card> future : futures) {
+						future.cancel(true);
+					}
+					Thread.currentThread().interrupt();
+					throw new VirgilCardServiceException(e);
+				}
+			}
+		}
+
+		try {
+			validateCards(loadedCards.values());
+		} catch (CardValidationException e) {
+			// Report invalid cards the same way as getCard does
+			for (Card invalidCard : e.getInvalidCards()) {
+				Iterator<Entry<String, Card>> it = loadedCards.entrySet().iterator();
+				while (it.hasNext()) {
+					Entry<String, Card> entry = it.next();
+					if (entry.getValue() == invalidCard) {
+						it.remove();
+						errors.put(entry.getKey(), new VirgilCardServiceException(
+								new CardValidationException(Arrays.asList(invalidCard))));
+					}
+				}
+			}
+		}
+
+		if (this.cardCache != null) {
+			for (Card card : loadedCards.values()) {
+				this.cardCache.putCard(card);
+			}
+		}
+		foundCards.putAll(loadedCards);
+
+		// Keep the order of requested identifiers
+		Map<String, Card> cards = new LinkedHashMap<>();
+		for (String cardId : ids) {
+			Card card = foundCards.get(cardId);
+			if (card != null) {
+				cards.put(cardId, card);
+			}
+		}
+
+		if (!errors.isEmpty()) {
+			throw new GetCardsException(cards, errors);
+		}
+
+		return cards;
+	}
+
+	private Card loadCard(String cardId) throws URISyntaxException {
+		URIBuilder builder = new URIBuilder(context.getReadOnlyCardsServiceAddress());
+		builder.setPath("/v4/card/" + cardId);
+
+		HttpGet getRequest = (HttpGet) createRequest(HttpGet.METHOD_NAME);
+		getRequest.setURI(builder.build());
+
+		SignedResponseModel responseModel = execute(getRequest, SignedResponseModel.class);
+		if (responseModel == null) {
+			return null;
+		}
+		return responseToCard(responseModel);
+	}
+
+	private synchronized ExecutorService getBatchExecutor() {
+		if (this.batchExecutor == null) {
+			int poolSize = context.getMaxConnectionsPerRoute();
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), new ClientThreadFactory("virgil-client-batch"));
+			executor.allowCoreThreadTimeOut(true);
+			this.batchExecutor = executor;
+		}
+		return this.batchExecutor;
+	}
+
 	/**
 	 * Revoke existing card.
 	 * 
@@ -248,6 +448,10 @@ public class VirgilClient {
 
 			execute(postRequest, Void.class);
 
+			if (this.cardCache != null) {
+				this.cardCache.removeCard(request.getCardId());
+			}
+
 		} catch (VirgilServiceException e) {
 			throw e;
 		} catch (Exception e) {
@@ -271,6 +475,13 @@ public class VirgilClient {
 			throw new EmptyArgumentException("criteria");
 		}
 
+		if (this.cardCache != null) {
+			List<Card> cards = this.cardCache.getSearchResult(criteria);
+			if (cards != null) {
+				return cards;
+			}
+		}
+
 		SearchRequest body = new SearchRequest();
 
 		body.setIdentities(criteria.getIdentities());
@@ -292,15 +503,20 @@ public class VirgilClient {
 			postRequest.setURI(builder.build());
 			postRequest.setEntity(new StringEntity(ConvertionUtils.getGson().toJson(body)));
 
-			SignedResponseModel[] responseModels = execute(postRequest, SignedResponseModel[].class);
+			List<Card> cards = execute(postRequest, new EntityReader<List<Card>>() {
 
-			List<Card> cards = new ArrayList<>();
-			for (SignedResponseModel responseModel : responseModels) {
-				cards.add(responseToCard(responseModel));
-			}
+				@Override
+				public List<Card> read(Reader reader) throws IOException {
+					return readCards(reader);
+				}
+			});
 
 			validateCards(cards);
 
+			if (this.cardCache != null) {
+				this.cardCache.putSearchResult(criteria, cards);
+			}
+
 			return cards;
 
 		} catch (Exception e) {
@@ -308,13 +524,46 @@ public class VirgilClient {
 		}
 	}
 
-	private Card responseToCard(SignedResponseModel responseModel) {
+	/**
+	 * Read cards from JSON array of signed responses one by one, so the whole
+	 * response is never kept in memory.
+	 * 
+	 * @param reader
+	 *            the JSON source.
+	 * @return the list of cards.
+	 * @throws IOException
+	 *             if JSON couldn't be read.
+	 */
+	static List<Card> readCards(Reader reader) throws IOException {
+		Gson gson = ConvertionUtils.getGson();
+		List<Card> cards = new ArrayList<>();
+
+		JsonReader jsonReader = new JsonReader(reader);
+		jsonReader.beginArray();
+		while (jsonReader.hasNext()) {
+			SignedResponseModel responseModel = gson.fromJson(jsonReader, SignedResponseModel.class);
+			cards.add(responseToCard(responseModel));
+		}
+		jsonReader.endArray();
+
+		return cards;
+	}
+
+	/**
+	 * Converts signed response to card.
+	 * 
+	 * @param responseModel
+	 *            the signed response.
+	 * @return the card.
+	 */
+	static Card responseToCard(SignedResponseModel responseModel) {
+		byte[] snapshot = ConvertionUtils.base64ToArray(responseModel.getContentSnapshot());
 		CreateCardModel model = ConvertionUtils.getGson()
-				.fromJson(ConvertionUtils.base64ToString(responseModel.getContentSnapshot()), CreateCardModel.class);
+				.fromJson(new InputStreamReader(new ByteArrayInputStream(snapshot), UTF8_CHARSET), CreateCardModel.class);
 
 		Card card = new Card();
 		card.setId(responseModel.getCardId());
-		card.setSnapshot(ConvertionUtils.base64ToArray(responseModel.getContentSnapshot()));
+		card.setSnapshot(snapshot);
 		card.setIdentity(model.getIdentity());
 		card.setIdentityType(model.getIdentityType());
 		card.setPublicKey(ConvertionUtils.base64ToArray(model.getPublicKey()));
@@ -342,8 +591,23 @@ public class VirgilClient {
 		return card;
 	}
 
+	private static CloseableHttpClient createHttpClient(VirgilClientContext context) {
+		PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+				context.getConnectionTimeToLive(), TimeUnit.MILLISECONDS);
+		connectionManager.setMaxTotal(context.getMaxConnectionsTotal());
+		connectionManager.setDefaultMaxPerRoute(context.getMaxConnectionsPerRoute());
+
+		HttpClientBuilder builder = HttpClients.custom().setConnectionManager(connectionManager)
+				.setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE);
+		if (context.getMaxIdleTime() > 0) {
+			builder.evictExpiredConnections().evictIdleConnections(context.getMaxIdleTime(), TimeUnit.MILLISECONDS);
+		}
+
+		return builder.build();
+	}
+
 	private CloseableHttpClient getHttpClient() {
-		return HttpClients.createDefault();
+		return httpClient;
 	}
 
 	private HttpRequestBase createRequest(String method) {
@@ -370,26 +634,45 @@ public class VirgilClient {
 		return requestBase;
 	}
 
-	private <T> T execute(HttpRequestBase requestBase, Class<T> clazz) {
+	private <T> T execute(HttpRequestBase requestBase, final Class<T> clazz) {
+		if (clazz.isAssignableFrom(Void.class)) {
+			return execute(requestBase, (EntityReader<T>) null);
+		}
+		return execute(requestBase, new EntityReader<T>() {
+
+			@Override
+			public T read(Reader reader) {
+				return ConvertionUtils.getGson().fromJson(reader, clazz);
+			}
+		});
+	}
+
+	private <T> T execute(HttpRequestBase requestBase, EntityReader<T> entityReader) {
 		try (CloseableHttpResponse response = getHttpClient().execute(requestBase)) {
-			if (response.getStatusLine().getStatusCode() >= HttpStatus.SC_BAD_REQUEST) {
+			int statusCode = response.getStatusLine().getStatusCode();
+			if (statusCode == HttpStatus.SC_NOT_FOUND && HttpGet.METHOD_NAME.equals(requestBase.getMethod())) {
+				// Requested entity doesn't exist
+				EntityUtils.consume(response.getEntity());
+				return null;
+			} else if (statusCode >= HttpStatus.SC_BAD_REQUEST) {
 
 				// Get error code from request
 				try (InputStream instream = response.getEntity().getContent();) {
 					String body = ConvertionUtils.toString(instream);
 					if (!StringUtils.isBlank(body)) {
 						ErrorResponse error = ConvertionUtils.getGson().fromJson(body, ErrorResponse.class);
-						throw new VirgilCardServiceException(error.getCode());
+						throw new VirgilCardServiceException(error.getCode(), statusCode);
 					}
 				}
-				throw new VirgilCardServiceException();
-			} else if (clazz.isAssignableFrom(Void.class)) {
+				throw new VirgilCardServiceException(0, statusCode);
+			} else if (entityReader == null) {
+				// Release the connection back to the pool
+				EntityUtils.consume(response.getEntity());
 				return null;
 			} else {
 				HttpEntity entity = response.getEntity();
-				try (InputStream instream = entity.getContent();) {
-					String body = ConvertionUtils.toString(instream);
-					return ConvertionUtils.getGson().fromJson(body, clazz);
+				try (Reader reader = new InputStreamReader(entity.getContent(), UTF8_CHARSET)) {
+					return entityReader.read(reader);
 				}
 			}
 		} catch (Exception e) {
@@ -397,15 +680,29 @@ public class VirgilClient {
 		}
 	}
 
+	/**
+	 * Reads the response entity.
+	 *
+	 * @param <T>
+	 *            the type of result.
+	 */
+	private interface EntityReader<T> {
+		T read(Reader reader) throws IOException;
+	}
+
 	private void validateCards(Collection<Card> cards) {
 		if (this.cardValidator == null) {
 			return;
 		}
-		List<Card> invalidCards = new ArrayList<>();
-
-		for (Card card : cards) {
-			if (!this.cardValidator.validate(card)) {
-				invalidCards.add(card);
+		List<Card> invalidCards;
+		if (this.cardValidator instanceof BatchCardValidator) {
+			invalidCards = ((BatchCardValidator) this.cardValidator).validate(cards);
+		} else {
+			invalidCards = new ArrayList<>();
+			for (Card card : cards) {
+				if (!this.cardValidator.validate(card)) {
+					invalidCards.add(card);
+				}
 			}
 		}
 
@@ -414,6 +711,25 @@ public class VirgilClient {
 		}
 	}
 
+	/**
+	 * Shuts down the connection pool and releases all allocated resources.
+	 * 
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (this.batchExecutor != null) {
+				this.batchExecutor.shutdownNow();
+			}
+		}
+		try {
+			this.httpClient.close();
+		} catch (IOException e) {
+			throw new VirgilCardServiceException(e);
+		}
+	}
+
 	/**
 	 * Sets the card validator.
 	 * 
@@ -426,6 +742,30 @@ public class VirgilClient {
 		}
 
 		this.cardValidator = cardValidator;
+
+		// Cached cards were validated by another validator
+		if (this.cardCache != null) {
+			this.cardCache.clear();
+		}
+	}
+
+	/**
+	 * Sets the card cache. Cards cache is disabled by default.
+	 * 
+	 * @param cardCache
+	 *            the card cache to set or {@code null} to disable caching.
+	 */
+	public void setCardCache(CardCache cardCache) {
+		this.cardCache = cardCache;
+	}
+
+	/**
+	 * Gets the card cache.
+	 * 
+	 * @return the card cache or {@code null} if caching is disabled.
+	 */
+	public CardCache getCardCache() {
+		return cardCache;
 	}
 
 }
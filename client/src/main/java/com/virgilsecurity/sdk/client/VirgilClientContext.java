@@ -50,6 +50,14 @@ public class VirgilClientContext {
 
 	private String identityServiceAddress;
 
+	private int maxConnectionsTotal;
+
+	private int maxConnectionsPerRoute;
+
+	private long connectionTimeToLive;
+
+	private long maxIdleTime;
+
 	/**
 	 * Create a new instance of {@code VirgilClientContext}
 	 *
@@ -62,6 +70,11 @@ public class VirgilClientContext {
 		this.cardsServiceAddress = "https://cards.virgilsecurity.com";
 		this.readOnlyCardsServiceAddress = "https://cards-ro.virgilsecurity.com";
 		this.identityServiceAddress = "https://identity.virgilsecurity.com";
+
+		this.maxConnectionsTotal = 20;
+		this.maxConnectionsPerRoute = 10;
+		this.connectionTimeToLive = 0;
+		this.maxIdleTime = 30000;
 	}
 
 	/**
@@ -141,6 +154,91 @@ public class VirgilClientContext {
 		this.identityServiceAddress = address;
 	}
 
+	/**
+	 * Gets the maximum number of pooled connections.
+	 * 
+	 * @return the maxConnectionsTotal
+	 */
+	public int getMaxConnectionsTotal() {
+		return maxConnectionsTotal;
+	}
+
+	/**
+	 * @param maxConnectionsTotal
+	 *            the maximum number of pooled connections to set.
+	 */
+	public void setMaxConnectionsTotal(int maxConnectionsTotal) {
+		if (maxConnectionsTotal <= 0)
+			throw new IllegalArgumentException();
+
+		this.maxConnectionsTotal = maxConnectionsTotal;
+	}
+
+	/**
+	 * Gets the maximum number of pooled connections per service address.
+	 * 
+	 * @return the maxConnectionsPerRoute
+	 */
+	public int getMaxConnectionsPerRoute() {
+		return maxConnectionsPerRoute;
+	}
+
+	/**
+	 * @param maxConnectionsPerRoute
+	 *            the maximum number of pooled connections per service address
+	 *            to set.
+	 */
+	public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+		if (maxConnectionsPerRoute <= 0)
+			throw new IllegalArgumentException();
+
+		this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+	}
+
+	/**
+	 * Gets the maximum life time of a pooled connection in milliseconds.
+	 * {@code 0} means that connection could be kept alive as long as the
+	 * server allows.
+	 * 
+	 * @return the connectionTimeToLive
+	 */
+	public long getConnectionTimeToLive() {
+		return connectionTimeToLive;
+	}
+
+	/**
+	 * @param connectionTimeToLive
+	 *            the maximum life time of a pooled connection in milliseconds
+	 *            to set.
+	 */
+	public void setConnectionTimeToLive(long connectionTimeToLive) {
+		if (connectionTimeToLive < 0)
+			throw new IllegalArgumentException();
+
+		this.connectionTimeToLive = connectionTimeToLive;
+	}
+
+	/**
+	 * Gets the time in milliseconds after which an idle pooled connection is
+	 * evicted. {@code 0} disables idle connections eviction.
+	 * 
+	 * @return the maxIdleTime
+	 */
+	public long getMaxIdleTime() {
+		return maxIdleTime;
+	}
+
+	/**
+	 * @param maxIdleTime
+	 *            the idle time in milliseconds to set.
+	 */
+	public void setMaxIdleTime(long maxIdleTime) {
+		if (maxIdleTime < 0)
+			throw new IllegalArgumentException();
+
+		this.maxIdleTime = maxIdleTime;
+	}
+
 	/**
 	 * Verify is URI well-formed.
 	 * 
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.client.exceptions;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.virgilsecurity.sdk.client.model.Card;
+
+/**
+ * This exception occurred when one or more cards of a batch couldn't be
+ * loaded. Cards which were loaded successfully are available with
+ * {@link #getCards()}.
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class GetCardsException extends VirgilException {
+
+	private static final long serialVersionUID = -2619745120396148470L;
+
+	private Map<String, Card> cards;
+
+	private Map<String, Exception> errors;
+
+	/**
+	 * Create a new instance of {@code GetCardsException}
+	 *
+	 * @param cards
+	 *            the successfully loaded cards by card identifier.
+	 * @param errors
+	 *            the errors by card identifier.
+	 */
+	public GetCardsException(Map<String, Card> cards, Map<String, Exception> errors) {
+		super("One or more cards couldn't be loaded");
+		this.cards = Collections.unmodifiableMap(new LinkedHashMap<>(cards));
+		this.errors = Collections.unmodifiableMap(new LinkedHashMap<>(errors));
+	}
+
+	/**
+	 * Gets the successfully loaded cards.
+	 * 
+	 * @return the cards by card identifier.
+	 */
+	public Map<String, Card> getCards() {
+		return cards;
+	}
+
+	/**
+	 * Gets the errors.
+	 * 
+	 * @return the errors by card identifier.
+	 */
+	public Map<String, Exception> getErrors() {
+		return errors;
+	}
+
+}
@@ -48,6 +48,16 @@ public class VirgilCardServiceException extends VirgilServiceException {
 		super(code);
 	}
 
+	/**
+	 * Create a new instance of {@code VirgilCardServiceException}
+	 *
+	 * @param code the error code.
+	 * @param httpStatusCode the HTTP status code of the service response.
+	 */
+	public VirgilCardServiceException(int code, int httpStatusCode) {
+		super(code, httpStatusCode);
+	}
+
 	/**
 	 * Create a new instance of {@code VirgilCardServiceException}
 	 *
@@ -46,6 +46,8 @@ public abstract class VirgilServiceException extends RuntimeException {
 
 	private int errorCode = 0;
 
+	private int httpStatusCode = 0;
+
 	/**
 	 * Create a new instance of {@code VirgilServiceException}
 	 */
@@ -62,6 +64,19 @@ public abstract class VirgilServiceException extends RuntimeException {
 		this.errorCode = code;
 	}
 
+	/**
+	 * Create a new instance of {@code VirgilServiceException}
+	 *
+	 * @param code
+	 *            The error code.
+	 * @param httpStatusCode
+	 *            The HTTP status code of the service response.
+	 */
+	public VirgilServiceException(int code, int httpStatusCode) {
+		this.errorCode = code;
+		this.httpStatusCode = httpStatusCode;
+	}
+
 	/**
 	 * Create a new instance of {@code VirgilServiceException}
 	 *
@@ -93,6 +108,14 @@ public abstract class VirgilServiceException extends RuntimeException {
 		return errorCode;
 	}
 
+	/**
+	 * @return the HTTP status code of the service response or {@code 0} if
+	 *         service didn't respond.
+	 */
+	public int getHttpStatusCode() {
+		return httpStatusCode;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -29,9 +29,11 @@
  */
 package com.virgilsecurity.sdk.client.utils;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.Charset;
-import java.util.Scanner;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -162,9 +164,16 @@ public class ConvertionUtils {
 	 * @return the input stream data as string.
 	 */
 	public static String toString(InputStream is) {
-		try (Scanner s = new Scanner(is, "UTF-8")) {
-			s.useDelimiter("\\A");
-			return s.hasNext() ? s.next() : "";
+		try (Reader reader = new InputStreamReader(is, UTF8_CHARSET)) {
+			StringBuilder sb = new StringBuilder();
+			char[] buffer = new char[4096];
+			int n;
+			while ((n = reader.read(buffer)) != -1) {
+				sb.append(buffer, 0, n);
+			}
+			return sb.toString();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
 		}
 	}
 
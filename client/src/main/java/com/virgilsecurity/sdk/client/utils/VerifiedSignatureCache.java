@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.client.utils;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache of successfully verified signatures. Each entry is
+ * identified by snapshot fingerprint, verifier identifier, verifier public
+ * key and signature, so a signature is never trusted for another snapshot or
+ * another verifier key. Only valid signatures are cached. The least recently
+ * used entries are evicted when cache is full.
+ * 
+ * <p>
+ * This class is thread-safe and could be shared between card validators.
+ * </p>
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class VerifiedSignatureCache {
+
+	/** The default maximum number of cached signatures. */
+	public static final int DEFAULT_MAX_SIZE = 10000;
+
+	private final Map<SignatureKey, Boolean> entries;
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	/**
+	 * Create a new instance of {@code VerifiedSignatureCache} with default
+	 * size.
+	 *
+	 */
+	public VerifiedSignatureCache() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * Create a new instance of {@code VerifiedSignatureCache}
+	 *
+	 * @param maxSize
+	 *            the maximum number of cached signatures.
+	 */
+	public VerifiedSignatureCache(final int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.entries = new LinkedHashMap<SignatureKey, Boolean>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 2716393498421738563L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<SignatureKey, Boolean> eldest) {
+				if (size() > maxSize) {
+					evictionCount.incrementAndGet();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Checks whether the signature was verified already.
+	 * 
+	 * @param fingerprint
+	 *            the fingerprint of the card snapshot.
+	 * @param verifierId
+	 *            the verifier identifier.
+	 * @param verifierKey
+	 *            the verifier public key value.
+	 * @param signature
+	 *            the signature.
+	 * @return {@code true} if signature is known to be valid.
+	 */
+	public boolean isVerified(byte[] fingerprint, String verifierId, byte[] verifierKey, byte[] signature) {
+		boolean verified;
+		synchronized (entries) {
+			verified = entries.get(new SignatureKey(fingerprint, verifierId, verifierKey, signature)) != null;
+		}
+		if (verified) {
+			hitCount.incrementAndGet();
+		} else {
+			missCount.incrementAndGet();
+		}
+		return verified;
+	}
+
+	/**
+	 * Remembers the valid signature.
+	 * 
+	 * @param fingerprint
+	 *            the fingerprint of the card snapshot.
+	 * @param verifierId
+	 *            the verifier identifier.
+	 * @param verifierKey
+	 *            the verifier public key value.
+	 * @param signature
+	 *            the signature.
+	 */
+	public void putVerified(byte[] fingerprint, String verifierId, byte[] verifierKey, byte[] signature) {
+		SignatureKey key = new SignatureKey(fingerprint, verifierId, verifierKey, signature);
+		synchronized (entries) {
+			entries.put(key, Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * Removes all entries from cache.
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	/**
+	 * Gets the number of cached signatures.
+	 * 
+	 * @return the size of cache.
+	 */
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * Gets the number of cache hits.
+	 * 
+	 * @return the hit count.
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Gets the number of cache misses.
+	 * 
+	 * @return the miss count.
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Gets the number of evicted entries.
+	 * 
+	 * @return the eviction count.
+	 */
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	private static class SignatureKey {
+		private final byte[] fingerprint;
+		private final String verifierId;
+		private final byte[] verifierKey;
+		private final byte[] signature;
+		private final int hash;
+
+		SignatureKey(byte[] fingerprint, String verifierId, byte[] verifierKey, byte[] signature) {
+			this.fingerprint = fingerprint.clone();
+			this.verifierId = verifierId;
+			this.verifierKey = verifierKey.clone();
+			this.signature = signature.clone();
+
+			int result = Arrays.hashCode(this.fingerprint);
+			result = 31 * result + verifierId.hashCode();
+			result = 31 * result + Arrays.hashCode(this.signature);
+			this.hash = result;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof SignatureKey)) {
+				return false;
+			}
+			SignatureKey other = (SignatureKey) obj;
+			return hash == other.hash && verifierId.equals(other.verifierId)
+					&& Arrays.equals(fingerprint, other.fingerprint) && Arrays.equals(signature, other.signature)
+					&& Arrays.equals(verifierKey, other.verifierKey);
+		}
+	}
+
+}
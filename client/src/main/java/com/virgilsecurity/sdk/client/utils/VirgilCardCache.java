@@ -0,0 +1,384 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.client.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.virgilsecurity.sdk.client.CardCache;
+import com.virgilsecurity.sdk.client.model.Card;
+import com.virgilsecurity.sdk.client.model.CardScope;
+import com.virgilsecurity.sdk.client.model.dto.SearchCriteria;
+
+/**
+ * In-memory {@link CardCache} with LRU eviction. Each cached card weights 1,
+ * each search result weights the number of found cards (at least 1). The
+ * least recently used entries are evicted when total weight exceeds the
+ * maximum weight.
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class VirgilCardCache implements CardCache {
+
+	/** The default maximum weight of cache. */
+	public static final long DEFAULT_MAX_WEIGHT = 10000;
+
+	/** The default time to live of cached cards in milliseconds. */
+	public static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(15);
+
+	/** The default time to live of missing cards in milliseconds. */
+	public static final long DEFAULT_MISSING_TTL = TimeUnit.MINUTES.toMillis(1);
+
+	private final long maxWeight;
+
+	private final long ttlNanos;
+
+	private final long missingTtlNanos;
+
+	private final LinkedHashMap<Object, CacheEntry> entries;
+
+	private long weight;
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	/**
+	 * Create a new instance of {@code VirgilCardCache} with default settings.
+	 *
+	 */
+	public VirgilCardCache() {
+		this(DEFAULT_MAX_WEIGHT, DEFAULT_TTL, DEFAULT_MISSING_TTL);
+	}
+
+	/**
+	 * Create a new instance of {@code VirgilCardCache}
+	 *
+	 * @param maxWeight
+	 *            the maximum weight of cache.
+	 * @param ttl
+	 *            the time to live of cached cards and search results in
+	 *            milliseconds.
+	 * @param missingTtl
+	 *            the time to live of missing cards in milliseconds.
+	 *            {@code 0} disables caching of missing cards.
+	 */
+	public VirgilCardCache(long maxWeight, long ttl, long missingTtl) {
+		if (maxWeight <= 0 || ttl <= 0 || missingTtl < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.maxWeight = maxWeight;
+		this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttl);
+		this.missingTtlNanos = TimeUnit.MILLISECONDS.toNanos(missingTtl);
+		this.entries = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.virgilsecurity.sdk.client.CardCache#getCard(java.lang.String)
+	 */
+	@Override
+	public Card getCard(String cardId) {
+		CacheEntry entry = lookup(cardId);
+		if (entry == null) {
+			missCount.incrementAndGet();
+			return null;
+		}
+		// Card known to be missing is a hit too, isCardMissing doesn't count
+		hitCount.incrementAndGet();
+		return entry.missing ? null : entry.cards.get(0);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.virgilsecurity.sdk.client.CardCache#isCardMissing(java.lang.String)
+	 */
+	@Override
+	public boolean isCardMissing(String cardId) {
+		CacheEntry entry = lookup(cardId);
+		return entry != null && entry.missing;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.virgilsecurity.sdk.client.CardCache#putCard(com.virgilsecurity.
+	 * sdk.client.model.Card)
+	 */
+	@Override
+	public void putCard(Card card) {
+		if (card == null || card.getId() == null) {
+			return;
+		}
+		store(card.getId(), new CacheEntry(Collections.singletonList(card), false, ttlNanos));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.virgilsecurity.sdk.client.CardCache#putMissingCard(java.lang.String)
+	 */
+	@Override
+	public void putMissingCard(String cardId) {
+		if (cardId == null || missingTtlNanos == 0) {
+			return;
+		}
+		store(cardId, new CacheEntry(Collections.<Card>emptyList(), true, missingTtlNanos));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.virgilsecurity.sdk.client.CardCache#getSearchResult(com.
+	 * virgilsecurity.sdk.client.model.dto.SearchCriteria)
+	 */
+	@Override
+	public List<Card> getSearchResult(SearchCriteria criteria) {
+		CacheEntry entry = lookup(new SearchKey(criteria));
+		if (entry == null) {
+			missCount.incrementAndGet();
+			return null;
+		}
+		hitCount.incrementAndGet();
+		return new ArrayList<>(entry.cards);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.virgilsecurity.sdk.client.CardCache#putSearchResult(com.
+	 * virgilsecurity.sdk.client.model.dto.SearchCriteria, java.util.List)
+	 */
+	@Override
+	public void putSearchResult(SearchCriteria criteria, List<Card> cards) {
+		if (criteria == null || cards == null) {
+			return;
+		}
+		store(new SearchKey(criteria), new CacheEntry(new ArrayList<>(cards), false, ttlNanos));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.virgilsecurity.sdk.client.CardCache#removeCard(java.lang.String)
+	 */
+	@Override
+	public synchronized void removeCard(String cardId) {
+		if (cardId == null) {
+			return;
+		}
+		Iterator<Map.Entry<Object, CacheEntry>> it = entries.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<Object, CacheEntry> mapEntry = it.next();
+			if (cardId.equals(mapEntry.getKey()) || mapEntry.getValue().containsCard(cardId)) {
+				weight -= mapEntry.getValue().weight;
+				it.remove();
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.virgilsecurity.sdk.client.CardCache#removeSearchResults(java.lang.
+	 * String)
+	 */
+	@Override
+	public synchronized void removeSearchResults(String identity) {
+		if (identity == null) {
+			return;
+		}
+		Iterator<Map.Entry<Object, CacheEntry>> it = entries.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<Object, CacheEntry> mapEntry = it.next();
+			if (mapEntry.getKey() instanceof SearchKey
+					&& ((SearchKey) mapEntry.getKey()).identities.contains(identity)) {
+				weight -= mapEntry.getValue().weight;
+				it.remove();
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.virgilsecurity.sdk.client.CardCache#clear()
+	 */
+	@Override
+	public synchronized void clear() {
+		entries.clear();
+		weight = 0;
+	}
+
+	/**
+	 * Gets the number of cache hits. Getting a card which is known to be
+	 * missing is a hit.
+	 * 
+	 * @return the hit count.
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Gets the number of cache misses.
+	 * 
+	 * @return the miss count.
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Gets the number of entries evicted because of cache size limit.
+	 * 
+	 * @return the eviction count.
+	 */
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	/**
+	 * Gets the current weight of cache.
+	 * 
+	 * @return the weight.
+	 */
+	public synchronized long getWeight() {
+		return weight;
+	}
+
+	private synchronized CacheEntry lookup(Object key) {
+		if (key == null) {
+			return null;
+		}
+		CacheEntry entry = entries.get(key);
+		if (entry != null && entry.expiresAt - System.nanoTime() <= 0) {
+			entries.remove(key);
+			weight -= entry.weight;
+			return null;
+		}
+		return entry;
+	}
+
+	private synchronized void store(Object key, CacheEntry entry) {
+		CacheEntry old = entries.put(key, entry);
+		if (old != null) {
+			weight -= old.weight;
+		}
+		weight += entry.weight;
+
+		Iterator<CacheEntry> it = entries.values().iterator();
+		while (weight > maxWeight && it.hasNext()) {
+			CacheEntry eldest = it.next();
+			if (eldest == entry) {
+				// Never evict just stored entry
+				continue;
+			}
+			weight -= eldest.weight;
+			it.remove();
+			evictionCount.incrementAndGet();
+		}
+	}
+
+	private static class CacheEntry {
+		private final List<Card> cards;
+		private final boolean missing;
+		private final long expiresAt;
+		private final int weight;
+
+		CacheEntry(List<Card> cards, boolean missing, long ttlNanos) {
+			this.cards = cards;
+			this.missing = missing;
+			this.expiresAt = System.nanoTime() + ttlNanos;
+			this.weight = Math.max(1, cards.size());
+		}
+
+		boolean containsCard(String cardId) {
+			for (Card card : cards) {
+				if (cardId.equals(card.getId())) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	private static class SearchKey {
+		private final Set<String> identities;
+		private final String identityType;
+		private final CardScope scope;
+
+		SearchKey(SearchCriteria criteria) {
+			this.identities = new TreeSet<>(criteria.getIdentities());
+			this.identityType = StringUtils.isBlank(criteria.getIdentityType()) ? null : criteria.getIdentityType();
+			this.scope = (criteria.getScope() == CardScope.GLOBAL) ? CardScope.GLOBAL : CardScope.APPLICATION;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = identities.hashCode();
+			result = 31 * result + ((identityType == null) ? 0 : identityType.hashCode());
+			result = 31 * result + scope.hashCode();
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof SearchKey)) {
+				return false;
+			}
+			SearchKey other = (SearchKey) obj;
+			return identities.equals(other.identities) && scope == other.scope
+					&& ((identityType == null) ? other.identityType == null : identityType.equals(other.identityType));
+		}
+	}
+
+}
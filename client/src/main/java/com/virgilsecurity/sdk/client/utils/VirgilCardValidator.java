@@ -29,28 +29,44 @@
  */
 package com.virgilsecurity.sdk.client.utils;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-import com.virgilsecurity.sdk.client.CardValidator;
+import com.virgilsecurity.sdk.client.BatchCardValidator;
 import com.virgilsecurity.sdk.client.model.Card;
 import com.virgilsecurity.sdk.crypto.Crypto;
 import com.virgilsecurity.sdk.crypto.Fingerprint;
 import com.virgilsecurity.sdk.crypto.PublicKey;
+import com.virgilsecurity.sdk.crypto.exception.VerificationException;
 import com.virgilsecurity.sdk.crypto.exceptions.EmptyArgumentException;
 
 /**
+ * Validates cards signatures with registered verifiers. If executor is set,
+ * signatures of a cards batch are verified in parallel. If verified signature
+ * cache is set, already verified signatures are not verified again.
  *
  * @author Andrii Iakovenko
  *
  */
-public class VirgilCardValidator implements CardValidator {
+public class VirgilCardValidator implements BatchCardValidator {
 
 	private Crypto crypto;
 
 	private Map<String, PublicKey> verifiers;
 
+	private ExecutorService executor;
+
+	private VerifiedSignatureCache signatureCache;
+
 	private final static String SERVICE_CARD_ID = "3e29d43373348cfb373b7eae189214dc01d7237765e572db685839b64adca853";
 	private final static String SERVICE_PUBLIC_KEY = "LS0tLS1CRUdJTiBQVUJMSUMgS0VZLS0tLS0KTUNvd0JRWURLMlZ3QXlFQVlSNTAx"
 			+ "a1YxdFVuZTJ1T2RrdzRrRXJSUmJKcmMyU3lhejVWMWZ1RytyVnM9Ci0tLS0tRU5E" + "IFBVQkxJQyBLRVktLS0tLQo=";
@@ -100,26 +116,211 @@ public class VirgilCardValidator implements CardValidator {
 	@Override
 	public boolean validate(Card card) {
 		// Support for legacy Cards.
-		if ("3.0".equals(card.getVersion())) {
+		if (isLegacy(card)) {
 			return true;
 		}
 
+		if (!hasAllSignatures(card)) {
+			return false;
+		}
+
 		Fingerprint fingerprint = this.crypto.calculateFingerprint(card.getSnapshot());
 
 		for (Entry<String, PublicKey> verifier : verifiers.entrySet()) {
+			boolean isValid = verify(fingerprint.getValue(), card.getSignatures().get(verifier.getKey()),
+					verifier.getKey(), verifier.getValue());
 
-			if (!card.getSignatures().containsKey(verifier.getKey())) {
+			if (!isValid) {
 				return false;
 			}
+		}
 
-			boolean isValid = this.crypto.verify(fingerprint.getValue(), card.getSignatures().get(verifier.getKey()),
-					verifier.getValue());
+		return true;
+	}
 
-			if (!isValid) {
-				return false;
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.virgilsecurity.sdk.client.BatchCardValidator#validate(java.util.
+	 * Collection)
+	 */
+	@Override
+	public List<Card> validate(Collection<Card> cards) {
+		List<Card> invalidCards = new ArrayList<>();
+
+		if (this.executor == null || (cards.size() < 2 && verifiers.size() < 2)) {
+			for (Card card : cards) {
+				if (!validate(card)) {
+					invalidCards.add(card);
+				}
 			}
+			return invalidCards;
+		}
+
+		// Verify all (card, verifier) pairs in parallel
+		List<CardVerification> verifications = new ArrayList<>();
+		for (Card card : cards) {
+			if (isLegacy(card)) {
+				continue;
+			}
+			if (!hasAllSignatures(card)) {
+				invalidCards.add(card);
+				continue;
+			}
+
+			CardVerification verification = new CardVerification(card,
+					this.crypto.calculateFingerprint(card.getSnapshot()).getValue());
+			for (Entry<String, PublicKey> verifier : verifiers.entrySet()) {
+				if (isVerified(verification.fingerprint, verification.card.getSignatures().get(verifier.getKey()),
+						verifier.getKey(), verifier.getValue())) {
+					continue;
+				}
+				verification.futures.add(this.executor
+						.submit(new SignatureVerification(verification, verifier.getKey(), verifier.getValue())));
+			}
+			verifications.add(verification);
+		}
+
+		try {
+			for (CardVerification verification : verifications) {
+				for (Future<Boolean> future : verification.futures) {
+					if (!future.get()) {
+						verification.invalid.set(true);
+						break;
+					}
+				}
+				if (verification.invalid.get()) {
+					// Don't wait for other signatures of invalid card
+					for (Future<Boolean> future : verification.futures) {
+						future.cancel(false);
+					}
+					invalidCards.add(verification.card);
+				}
+			}
+		} catch (ExecutionException e) {
+			cancelAll(verifications);
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new VerificationException(cause);
+		} catch (InterruptedException e) {
+			cancelAll(verifications);
+			Thread.currentThread().interrupt();
+			throw new VerificationException(e);
+		}
+
+		return invalidCards;
+	}
+
+	/**
+	 * Sets the executor used for batch validation.
+	 * 
+	 * @param executor
+	 *            the executor to set or {@code null} to validate cards in the
+	 *            calling thread.
+	 */
+	public void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Sets the cache of verified signatures.
+	 * 
+	 * @param signatureCache
+	 *            the cache to set or {@code null} to verify all signatures
+	 *            every time.
+	 */
+	public void setSignatureCache(VerifiedSignatureCache signatureCache) {
+		this.signatureCache = signatureCache;
+	}
+
+	/**
+	 * @return the cache of verified signatures.
+	 */
+	public VerifiedSignatureCache getSignatureCache() {
+		return signatureCache;
+	}
+
+	private boolean verify(byte[] fingerprint, byte[] signature, String verifierId, PublicKey verifierKey) {
+		return isVerified(fingerprint, signature, verifierId, verifierKey)
+				|| verifyAndCache(fingerprint, signature, verifierId, verifierKey);
+	}
+
+	private boolean verifyAndCache(byte[] fingerprint, byte[] signature, String verifierId, PublicKey verifierKey) {
+		boolean isValid = this.crypto.verify(fingerprint, signature, verifierKey);
+		VerifiedSignatureCache cache = this.signatureCache;
+		if (isValid && cache != null) {
+			cache.putVerified(fingerprint, verifierId, verifierKey.getValue(), signature);
 		}
+		return isValid;
+	}
 
+	private boolean isVerified(byte[] fingerprint, byte[] signature, String verifierId, PublicKey verifierKey) {
+		VerifiedSignatureCache cache = this.signatureCache;
+		return cache != null && cache.isVerified(fingerprint, verifierId, verifierKey.getValue(), signature);
+	}
+
+	private boolean isLegacy(Card card) {
+		return "3.0".equals(card.getVersion());
+	}
+
+	private boolean hasAllSignatures(Card card) {
+		for (String verifierId : verifiers.keySet()) {
+			if (!card.getSignatures().containsKey(verifierId)) {
+				return false;
+			}
+		}
 		return true;
 	}
+
+	private void cancelAll(List<CardVerification> verifications) {
+		for (CardVerification verification : verifications) {
+			for (Future<Boolean> future : verification.futures) {
+				future.cancel(false);
+			}
+		}
+	}
+
+	private static class CardVerification {
+		private final Card card;
+		private final byte[] fingerprint;
+		private final AtomicBoolean invalid = new AtomicBoolean();
+		private final List<Future<Boolean>> futures = new ArrayList<>();
+
+		CardVerification(Card card, byte[] fingerprint) {
+			this.card = card;
+			this.fingerprint = fingerprint;
+		}
+	}
+
+	private class SignatureVerification implements Callable<Boolean> {
+		private final CardVerification verification;
+		private final String verifierId;
+		private final PublicKey verifierKey;
+
+		SignatureVerification(CardVerification verification, String verifierId, PublicKey verifierKey) {
+			this.verification = verification;
+			this.verifierId = verifierId;
+			this.verifierKey = verifierKey;
+		}
+
+		@Override
+		public Boolean call() {
+			// Another signature of the card is invalid already
+			if (verification.invalid.get()) {
+				return false;
+			}
+			boolean isValid = verifyAndCache(verification.fingerprint, verification.card.getSignatures().get(verifierId),
+					verifierId, verifierKey);
+			if (!isValid) {
+				verification.invalid.set(true);
+			}
+			return isValid;
+		}
+	}
 }
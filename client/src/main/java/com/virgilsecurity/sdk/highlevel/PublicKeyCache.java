@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.highlevel;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.virgilsecurity.sdk.crypto.Crypto;
+import com.virgilsecurity.sdk.crypto.PublicKey;
+
+/**
+ * A bounded cache of imported public keys. Keys are identified by raw public
+ * key bytes and the crypto which imported them. The least recently used keys
+ * are evicted when cache is full. Cached keys are immutable, so they could be
+ * shared safely.
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+final class PublicKeyCache {
+
+	/** The default maximum number of cached public keys. */
+	static final int DEFAULT_MAX_SIZE = 1000;
+
+	private final Map<KeyData, ImportedPublicKey> keys;
+
+	/**
+	 * Create a new instance of {@code PublicKeyCache}
+	 *
+	 * @param maxSize
+	 *            the maximum number of cached public keys.
+	 */
+	PublicKeyCache(final int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize");
+		}
+		this.keys = new LinkedHashMap<KeyData, ImportedPublicKey>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = -3413914727620963593L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<KeyData, ImportedPublicKey> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Gets imported public key from cache or imports it with crypto.
+	 * 
+	 * @param crypto
+	 *            the crypto.
+	 * @param publicKeyData
+	 *            the raw public key.
+	 * @return the imported public key.
+	 */
+	ImportedPublicKey importPublicKey(Crypto crypto, byte[] publicKeyData) {
+		KeyData keyData = new KeyData(publicKeyData);
+		ImportedPublicKey importedKey;
+		synchronized (keys) {
+			importedKey = keys.get(keyData);
+		}
+		if (importedKey != null && importedKey.getCrypto() == crypto) {
+			return importedKey;
+		}
+
+		// Import outside of lock, so other keys are not blocked
+		PublicKey publicKey = crypto.importPublicKey(publicKeyData);
+		importedKey = new ImportedPublicKey(crypto, new CachedPublicKey(publicKey.getId(), publicKey.getValue()));
+		synchronized (keys) {
+			keys.put(keyData, importedKey);
+		}
+		return importedKey;
+	}
+
+	/**
+	 * @return the number of cached public keys.
+	 */
+	int size() {
+		synchronized (keys) {
+			return keys.size();
+		}
+	}
+
+	/**
+	 * Removes all keys from cache.
+	 */
+	void clear() {
+		synchronized (keys) {
+			keys.clear();
+		}
+	}
+
+	/**
+	 * The public key imported by crypto.
+	 */
+	static final class ImportedPublicKey {
+		private final Crypto crypto;
+		private final PublicKey publicKey;
+
+		ImportedPublicKey(Crypto crypto, PublicKey publicKey) {
+			this.crypto = crypto;
+			this.publicKey = publicKey;
+		}
+
+		/**
+		 * @return the crypto which imported the key.
+		 */
+		Crypto getCrypto() {
+			return crypto;
+		}
+
+		/**
+		 * @return the imported public key.
+		 */
+		PublicKey getPublicKey() {
+			return publicKey;
+		}
+	}
+
+	/**
+	 * The public key which can't be changed by its users.
+	 */
+	private static final class CachedPublicKey implements PublicKey {
+		private final byte[] id;
+		private final byte[] value;
+
+		CachedPublicKey(byte[] id, byte[] value) {
+			this.id = id.clone();
+			this.value = value.clone();
+		}
+
+		@Override
+		public byte[] getId() {
+			return id.clone();
+		}
+
+		@Override
+		public byte[] getValue() {
+			return value.clone();
+		}
+	}
+
+	private static final class KeyData {
+		private final byte[] data;
+		private final int hash;
+
+		KeyData(byte[] data) {
+			this.data = data.clone();
+			this.hash = Arrays.hashCode(this.data);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof KeyData)) {
+				return false;
+			}
+			KeyData other = (KeyData) obj;
+			return hash == other.hash && Arrays.equals(data, other.data);
+		}
+	}
+
+}
@@ -78,6 +78,23 @@ public class ServiceContainer {
 		return (T) getInstance(registeredObject);
 	}
 
+	/**
+	 * Gets the service instance without creating it.
+	 * 
+	 * @param type
+	 *            the service type.
+	 * @return the service instance or {@code null} if service is not
+	 *         registered or its instance is not created yet.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T find(final Class<T> type) {
+		RegisteredObject registeredObject = registeredObjects.get(type);
+		if (registeredObject == null) {
+			return null;
+		}
+		return (T) registeredObject.getInstance();
+	}
+
 	private Object getInstance(RegisteredObject registeredObject) {
 		if (registeredObject.getInstance() != null) {
 			return registeredObject.getInstance();
@@ -61,6 +61,8 @@ public class VirgilCard {
 
 	private Card model;
 
+	private volatile PublicKeyCache.ImportedPublicKey importedPublicKey;
+
 	/**
 	 * Create a new instance of {@code VirgilCard}
 	 *
@@ -83,7 +85,7 @@ public class VirgilCard {
 		}
 
 		Crypto crypto = VirgilConfig.getService(Crypto.class);
-		PublicKey publicKey = crypto.importPublicKey(this.getPublicKey());
+		PublicKey publicKey = this.getImportedPublicKey(crypto);
 
 		byte[] cipherdata = crypto.encrypt(data, publicKey);
 
@@ -110,7 +112,7 @@ public class VirgilCard {
 		}
 
 		Crypto crypto = VirgilConfig.getService(Crypto.class);
-		PublicKey publicKey = crypto.importPublicKey(this.getPublicKey());
+		PublicKey publicKey = this.getImportedPublicKey(crypto);
 
 		boolean isValid = crypto.verify(data, signature, publicKey);
 
@@ -351,6 +353,23 @@ public class VirgilCard {
 		return model.getData();
 	}
 
+	/**
+	 * Gets the Public Key of current Virgil Card imported with crypto. The key
+	 * is imported once and shared between cards with the same Public Key.
+	 * 
+	 * @param crypto
+	 *            the crypto.
+	 * @return the imported Public Key.
+	 */
+	PublicKey getImportedPublicKey(Crypto crypto) {
+		PublicKeyCache.ImportedPublicKey importedKey = this.importedPublicKey;
+		if (importedKey == null || importedKey.getCrypto() != crypto) {
+			importedKey = VirgilConfig.getPublicKeyCache().importPublicKey(crypto, this.getPublicKey());
+			this.importedPublicKey = importedKey;
+		}
+		return importedKey.getPublicKey();
+	}
+
 	/**
 	 * Gets the Public Key of current Virgil Card.
 	 * 
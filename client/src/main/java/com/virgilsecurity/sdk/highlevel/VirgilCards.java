@@ -36,6 +36,8 @@ import com.virgilsecurity.sdk.client.utils.ConvertionUtils;
 import com.virgilsecurity.sdk.client.utils.StringUtils;
 import com.virgilsecurity.sdk.crypto.Crypto;
 import com.virgilsecurity.sdk.crypto.PublicKey;
+import com.virgilsecurity.sdk.crypto.RecipientSet;
+import com.virgilsecurity.sdk.crypto.VirgilCrypto;
 import com.virgilsecurity.sdk.crypto.exceptions.EmptyArgumentException;
 
 /**
@@ -81,14 +83,71 @@ public class VirgilCards extends ArrayList<VirgilCard> {
 		}
 
 		Crypto crypto = VirgilConfig.getService(Crypto.class);
+		byte[] cipherdata = crypto.encrypt(data, getPublicKeys(crypto));
+
+		return cipherdata;
+	}
+
+	/**
+	 * Creates recipient set for encryption of many messages for these cards.
+	 * Session key is encrypted for all cards once and reused until message
+	 * count or lifetime limit is reached. Cards added to the list later are
+	 * not recipients of the set. If configured crypto is not
+	 * {@linkplain VirgilCrypto}, each message is encrypted with a new session
+	 * key.
+	 * 
+	 * @param maxMessages
+	 *            The number of messages encrypted with the same session key.
+	 * @param sessionLifetime
+	 *            The time in milliseconds session key is used for.
+	 * @return The recipient set.
+	 * 
+	 * @throws EmptyArgumentException
+	 *             if there is no recipients.
+	 */
+	public RecipientSet createRecipientSet(int maxMessages, long sessionLifetime) {
+		if (this.isEmpty()) {
+			throw new EmptyArgumentException("recipients");
+		}
+
+		Crypto crypto = VirgilConfig.getService(Crypto.class);
+		if (crypto instanceof VirgilCrypto) {
+			return ((VirgilCrypto) crypto).createRecipientSet(getPublicKeys(crypto), maxMessages, sessionLifetime);
+		}
+		return new SimpleRecipientSet(crypto, getPublicKeys(crypto));
+	}
+
+	private PublicKey[] getPublicKeys(Crypto crypto) {
 		List<PublicKey> publicKeys = new ArrayList<>();
 		for (VirgilCard recipient : this) {
-			publicKeys.add(crypto.importPublicKey(recipient.getPublicKey()));
+			publicKeys.add(recipient.getImportedPublicKey(crypto));
 		}
+		return publicKeys.toArray(new PublicKey[0]);
+	}
 
-		byte[] cipherdata = crypto.encrypt(data, publicKeys.toArray(new PublicKey[0]));
+	private static class SimpleRecipientSet implements RecipientSet {
+		private final Crypto crypto;
+		private final PublicKey[] recipients;
 
-		return cipherdata;
+		SimpleRecipientSet(Crypto crypto, PublicKey[] recipients) {
+			this.crypto = crypto;
+			this.recipients = recipients;
+		}
+
+		@Override
+		public byte[] encrypt(byte[] data) {
+			return crypto.encrypt(data, recipients);
+		}
+
+		@Override
+		public PublicKey[] getRecipients() {
+			return recipients.clone();
+		}
+
+		@Override
+		public void rotate() {
+			// Session key is not reused
+		}
 	}
 
 }
@@ -29,6 +29,9 @@
  */
 package com.virgilsecurity.sdk.highlevel;
 
+import java.io.Closeable;
+
+import com.virgilsecurity.sdk.client.CardCache;
 import com.virgilsecurity.sdk.client.CardValidator;
 import com.virgilsecurity.sdk.client.RequestSigner;
 import com.virgilsecurity.sdk.client.VirgilClient;
@@ -50,6 +53,10 @@ public class VirgilConfig {
 
 	private static ServiceContainer serviceContainer;
 
+	private static volatile VirgilKeyCache keyCache;
+
+	private static volatile PublicKeyCache publicKeyCache = new PublicKeyCache(PublicKeyCache.DEFAULT_MAX_SIZE);
+
 	static {
 		serviceContainer = new ServiceContainer();
 		init();
@@ -75,6 +82,10 @@ public class VirgilConfig {
 	 * developer’s account.
 	 * </p>
 	 * 
+	 * <p>
+	 * The client created by previous initialization is closed.
+	 * </p>
+	 * 
 	 * @param accessToken
 	 *            The access token.
 	 * 
@@ -89,7 +100,12 @@ public class VirgilConfig {
 		VirgilClient client = new VirgilClient(accessToken);
 		client.setCardValidator(new VirgilCardValidator(crypto));
 
+		VirgilClient previousClient = serviceContainer.find(VirgilClient.class);
+		serviceContainer.remove(VirgilClient.class);
 		serviceContainer.registerInstance(VirgilClient.class, client);
+
+		// Release connection pool of the replaced client
+		closeQuietly(previousClient);
 	}
 
 	/**
@@ -103,6 +119,17 @@ public class VirgilConfig {
 		client.setCardValidator(validator);
 	}
 
+	/**
+	 * Sets the card cache.
+	 * 
+	 * @param cache
+	 *            The card cache to be set or {@code null} to disable caching.
+	 */
+	public static void setCardCache(CardCache cache) {
+		VirgilClient client = serviceContainer.resolve(VirgilClient.class);
+		client.setCardCache(cache);
+	}
+
 	/**
 	 * Sets the keys storage.
 	 * 
@@ -114,16 +141,69 @@ public class VirgilConfig {
 		serviceContainer.registerInstance(KeyStorage.class, storage);
 	}
 
+	/**
+	 * Sets the cache of loaded keys.
+	 * 
+	 * @param cache
+	 *            The key cache to be set or {@code null} to load keys from key
+	 *            storage every time.
+	 */
+	public static void setKeyCache(VirgilKeyCache cache) {
+		keyCache = cache;
+	}
+
+	/**
+	 * @return the cache of loaded keys or {@code null} if keys are not cached.
+	 */
+	public static VirgilKeyCache getKeyCache() {
+		return keyCache;
+	}
+
+	/**
+	 * Sets the maximum number of public keys of Virgil Cards which are kept
+	 * imported. Keys imported before are dropped. The default size is
+	 * {@value PublicKeyCache#DEFAULT_MAX_SIZE}.
+	 * 
+	 * @param maxSize
+	 *            The maximum number of imported public keys.
+	 */
+	public static void setPublicKeyCacheSize(int maxSize) {
+		publicKeyCache = new PublicKeyCache(maxSize);
+	}
+
 	/**
 	 * Restores the persisted high-level SDK components values to their
-	 * corresponding default properties.
+	 * corresponding default properties. The client and crypto created by
+	 * config are closed.
 	 */
 	public static void reset() {
+		VirgilClient client = serviceContainer.find(VirgilClient.class);
+		Crypto crypto = serviceContainer.find(Crypto.class);
+
 		serviceContainer.clear();
+		closeQuietly(client);
+		closeQuietly(crypto);
+		keyCache = null;
+		// Don't keep keys imported by closed crypto
+		publicKeyCache = new PublicKeyCache(PublicKeyCache.DEFAULT_MAX_SIZE);
 		init();
 	}
 
+	static PublicKeyCache getPublicKeyCache() {
+		return publicKeyCache;
+	}
+
 	static <T> T getService(Class<T> type) {
 		return serviceContainer.resolve(type);
 	}
+
+	private static void closeQuietly(Object service) {
+		if (service instanceof Closeable) {
+			try {
+				((Closeable) service).close();
+			} catch (Exception e) {
+				// Service is not used anymore
+			}
+		}
+	}
 }
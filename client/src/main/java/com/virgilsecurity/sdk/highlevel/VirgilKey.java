@@ -176,7 +176,8 @@ public class VirgilKey {
 	}
 
 	/**
-	 * Loads the {@linkplain VirgilKey} by specified key name.
+	 * Loads the {@linkplain VirgilKey} by specified key name. If key cache is
+	 * set, the key is taken from the cache when it was loaded already.
 	 * 
 	 * @param keyName
 	 *            Name of the key.
@@ -192,6 +193,14 @@ public class VirgilKey {
 		Crypto crypto = VirgilConfig.getService(Crypto.class);
 		KeyStorage storage = VirgilConfig.getService(KeyStorage.class);
 
+		VirgilKeyCache cache = VirgilConfig.getKeyCache();
+		if (cache != null) {
+			KeyPair cachedKeyPair = cache.get(keyName, password, crypto, storage);
+			if (cachedKeyPair != null) {
+				return new VirgilKey(keyName, cachedKeyPair);
+			}
+		}
+
 		if (!storage.exists(keyName)) {
 			throw new VirgilKeyIsNotFoundException();
 		}
@@ -201,6 +210,9 @@ public class VirgilKey {
 		PublicKey publicKey = crypto.extractPublicKey(privateKey);
 
 		VirgilKey virgilKey = new VirgilKey(keyName, new KeyPair(publicKey, privateKey));
+		if (cache != null) {
+			cache.put(keyName, virgilKey.getKeyPair(), password, crypto, storage);
+		}
 
 		return virgilKey;
 	}
@@ -380,6 +392,11 @@ public class VirgilKey {
 
 		KeyStorage storage = VirgilConfig.getService(KeyStorage.class);
 		storage.delete(this.getKeyName());
+
+		VirgilKeyCache cache = VirgilConfig.getKeyCache();
+		if (cache != null) {
+			cache.evict(this.getKeyName());
+		}
 	}
 
 	/**
@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.highlevel;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.virgilsecurity.sdk.crypto.Crypto;
+import com.virgilsecurity.sdk.crypto.KeyPair;
+import com.virgilsecurity.sdk.crypto.KeyStorage;
+import com.virgilsecurity.sdk.crypto.PrivateKey;
+import com.virgilsecurity.sdk.crypto.PublicKey;
+import com.virgilsecurity.sdk.crypto.exception.VirgilException;
+
+/**
+ * A bounded cache of keys loaded from key storage. When set with
+ * {@link VirgilConfig#setKeyCache(VirgilKeyCache)}, repeated
+ * {@link VirgilKey#load(String, String)} calls don't read the storage and don't
+ * decrypt the private key again.
+ * 
+ * <p>
+ * A cached key is returned only for the same password, crypto and key storage
+ * it was loaded with. Each load gets its own copy of the key pair, so evicting
+ * a key never affects keys which were already returned. Keys which were not
+ * used for idle timeout and the least recently used keys above maximum size
+ * are evicted, and the cached key data is wiped.
+ * </p>
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class VirgilKeyCache {
+
+	/** The default maximum number of cached keys. */
+	public static final int DEFAULT_MAX_SIZE = 100;
+
+	/** The default idle timeout in milliseconds. */
+	public static final long DEFAULT_IDLE_TIMEOUT = TimeUnit.MINUTES.toMillis(10);
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final int maxSize;
+
+	private final long idleTimeoutNanos;
+
+	private final byte[] salt;
+
+	private final Map<String, CachedKey> keys;
+
+	private long hitCount;
+
+	private long missCount;
+
+	private long evictionCount;
+
+	/**
+	 * Create a new instance of {@code VirgilKeyCache} with default maximum size
+	 * and idle timeout.
+	 *
+	 */
+	public VirgilKeyCache() {
+		this(DEFAULT_MAX_SIZE, DEFAULT_IDLE_TIMEOUT);
+	}
+
+	/**
+	 * Create a new instance of {@code VirgilKeyCache}
+	 *
+	 * @param maxSize
+	 *            the maximum number of cached keys.
+	 * @param idleTimeout
+	 *            the time in milliseconds after which not used key is evicted.
+	 */
+	public VirgilKeyCache(int maxSize, long idleTimeout) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize");
+		}
+		if (idleTimeout <= 0) {
+			throw new IllegalArgumentException("idleTimeout");
+		}
+		this.maxSize = maxSize;
+		this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+		this.salt = new byte[32];
+		new SecureRandom().nextBytes(this.salt);
+
+		// Keys are moved to the end on use, so the eldest entry is the least
+		// recently used one. Access order is not used, it reorders on misses
+		this.keys = new LinkedHashMap<>();
+	}
+
+	/**
+	 * Gets a copy of the key pair loaded with the same password, crypto and
+	 * storage.
+	 * 
+	 * @param keyName
+	 *            the key name.
+	 * @param password
+	 *            the password which the key was loaded with.
+	 * @param crypto
+	 *            the crypto.
+	 * @param storage
+	 *            the key storage.
+	 * @return the new key pair or {@code null} if there is no such key.
+	 */
+	KeyPair get(String keyName, String password, Crypto crypto, KeyStorage storage) {
+		byte[] passwordHash = hash(password);
+		long now = System.nanoTime();
+		byte[] privateKeyData;
+		byte[] publicKeyData;
+		synchronized (keys) {
+			evictExpired(now);
+
+			String name = normalize(keyName);
+			CachedKey cachedKey = keys.get(name);
+			if (cachedKey == null || cachedKey.crypto != crypto || cachedKey.storage != storage
+					|| !MessageDigest.isEqual(cachedKey.passwordHash, passwordHash)) {
+				missCount++;
+				return null;
+			}
+			keys.remove(name);
+			keys.put(name, cachedKey);
+			cachedKey.lastAccess = now;
+			hitCount++;
+
+			// Copy under lock, the data is wiped on eviction
+			privateKeyData = cachedKey.privateKeyData.clone();
+			publicKeyData = cachedKey.publicKeyData;
+		}
+		try {
+			PrivateKey privateKey = crypto.importPrivateKey(privateKeyData);
+			PublicKey publicKey = crypto.importPublicKey(publicKeyData);
+
+			return new KeyPair(publicKey, privateKey);
+		} finally {
+			Arrays.fill(privateKeyData, (byte) 0);
+		}
+	}
+
+	/**
+	 * Puts loaded key to the cache.
+	 * 
+	 * @param keyName
+	 *            the key name.
+	 * @param keyPair
+	 *            the loaded key pair.
+	 * @param password
+	 *            the password which the key was loaded with.
+	 * @param crypto
+	 *            the crypto which imported the key.
+	 * @param storage
+	 *            the key storage which the key was loaded from.
+	 */
+	void put(String keyName, KeyPair keyPair, String password, Crypto crypto, KeyStorage storage) {
+		byte[] privateKeyData = crypto.exportPrivateKey(keyPair.getPrivateKey());
+		byte[] publicKeyData = crypto.exportPublicKey(keyPair.getPublicKey());
+		CachedKey cachedKey = new CachedKey(privateKeyData, publicKeyData, hash(password), crypto, storage,
+				System.nanoTime());
+		synchronized (keys) {
+			String name = normalize(keyName);
+			CachedKey previous = keys.remove(name);
+			keys.put(name, cachedKey);
+			if (previous != null) {
+				evicted(previous);
+			}
+			evictExpired(cachedKey.lastAccess);
+
+			Iterator<CachedKey> it = keys.values().iterator();
+			while (keys.size() > maxSize) {
+				CachedKey eldest = it.next();
+				it.remove();
+				evicted(eldest);
+			}
+		}
+	}
+
+	/**
+	 * Evicts the key from the cache.
+	 * 
+	 * @param keyName
+	 *            the key name.
+	 */
+	public void evict(String keyName) {
+		if (keyName == null) {
+			return;
+		}
+		synchronized (keys) {
+			CachedKey cachedKey = keys.remove(normalize(keyName));
+			if (cachedKey != null) {
+				evicted(cachedKey);
+			}
+		}
+	}
+
+	/**
+	 * Evicts all keys from the cache.
+	 */
+	public void evictAll() {
+		synchronized (keys) {
+			for (CachedKey cachedKey : keys.values()) {
+				evicted(cachedKey);
+			}
+			keys.clear();
+		}
+	}
+
+	/**
+	 * @return the number of cached keys.
+	 */
+	public int size() {
+		synchronized (keys) {
+			return keys.size();
+		}
+	}
+
+	/**
+	 * @return the number of loads served by the cache.
+	 */
+	public long getHitCount() {
+		synchronized (keys) {
+			return hitCount;
+		}
+	}
+
+	/**
+	 * @return the number of loads which were not found in the cache.
+	 */
+	public long getMissCount() {
+		synchronized (keys) {
+			return missCount;
+		}
+	}
+
+	/**
+	 * @return the number of evicted keys.
+	 */
+	public long getEvictionCount() {
+		synchronized (keys) {
+			return evictionCount;
+		}
+	}
+
+	private void evictExpired(long now) {
+		Iterator<CachedKey> it = keys.values().iterator();
+		while (it.hasNext()) {
+			CachedKey cachedKey = it.next();
+			if (now - cachedKey.lastAccess < idleTimeoutNanos) {
+				// Other keys were used later
+				break;
+			}
+			it.remove();
+			evicted(cachedKey);
+		}
+	}
+
+	private void evicted(CachedKey cachedKey) {
+		evictionCount++;
+		Arrays.fill(cachedKey.passwordHash, (byte) 0);
+		Arrays.fill(cachedKey.privateKeyData, (byte) 0);
+	}
+
+	private byte[] hash(String password) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(salt);
+			if (password != null) {
+				byte[] passwordBytes = password.getBytes(UTF8);
+				digest.update((byte) 1);
+				digest.update(passwordBytes);
+				Arrays.fill(passwordBytes, (byte) 0);
+			}
+			return digest.digest();
+		} catch (NoSuchAlgorithmException e) {
+			throw new VirgilException(e);
+		}
+	}
+
+	private static String normalize(String keyName) {
+		return keyName.toLowerCase(Locale.ROOT);
+	}
+
+	private static final class CachedKey {
+		private final byte[] privateKeyData;
+		private final byte[] publicKeyData;
+		private final byte[] passwordHash;
+		private final Crypto crypto;
+		private final KeyStorage storage;
+		private long lastAccess;
+
+		CachedKey(byte[] privateKeyData, byte[] publicKeyData, byte[] passwordHash, Crypto crypto,
+				KeyStorage storage, long lastAccess) {
+			this.privateKeyData = privateKeyData;
+			this.publicKeyData = publicKeyData;
+			this.passwordHash = passwordHash;
+			this.crypto = crypto;
+			this.storage = storage;
+			this.lastAccess = lastAccess;
+		}
+	}
+
+}
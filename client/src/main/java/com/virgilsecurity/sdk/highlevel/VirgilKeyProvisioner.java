@@ -0,0 +1,637 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.highlevel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.security.auth.DestroyFailedException;
+import javax.security.auth.Destroyable;
+
+import org.apache.http.HttpStatus;
+
+import com.virgilsecurity.sdk.client.RequestSigner;
+import com.virgilsecurity.sdk.client.VirgilClient;
+import com.virgilsecurity.sdk.client.exceptions.VirgilKeyIsAlreadyExistsException;
+import com.virgilsecurity.sdk.client.exceptions.VirgilServiceException;
+import com.virgilsecurity.sdk.client.requests.CreateCardRequest;
+import com.virgilsecurity.sdk.client.utils.StringUtils;
+import com.virgilsecurity.sdk.crypto.Crypto;
+import com.virgilsecurity.sdk.crypto.KeyEntry;
+import com.virgilsecurity.sdk.crypto.KeyPair;
+import com.virgilsecurity.sdk.crypto.KeyStorage;
+import com.virgilsecurity.sdk.crypto.PrivateKey;
+import com.virgilsecurity.sdk.crypto.exception.KeyEntryAlreadyExistsException;
+import com.virgilsecurity.sdk.crypto.exception.VirgilException;
+import com.virgilsecurity.sdk.crypto.exceptions.EmptyArgumentException;
+import com.virgilsecurity.sdk.crypto.exceptions.NullArgumentException;
+import com.virgilsecurity.sdk.keystorage.VirgilKeyEntry;
+import com.virgilsecurity.sdk.keystorage.VirgilKeyStorage;
+
+/**
+ * Provisions keys and cards for many devices at once.
+ * 
+ * <p>
+ * For each device a key pair is generated, the private key is stored to key
+ * storage and a card is created for the public key. Key pairs are generated
+ * and card requests are signed on a pool of generation threads. Keys are
+ * stored in batches. Cards are created by a limited number of concurrent
+ * requests, while keys for the next batch are generated.
+ * </p>
+ * <p>
+ * If the service rejected a card, its key is deleted from storage, so the
+ * device could be provisioned again. If it's unknown whether the card was
+ * created, e.g. the request timed out, the key is kept and the result has
+ * {@link Status#UNKNOWN} status with the signed request which could be
+ * submitted again.
+ * </p>
+ * <p>
+ * Failure of one device doesn't stop provisioning of others, it's reported in
+ * the device {@linkplain Result}.
+ * </p>
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class VirgilKeyProvisioner {
+
+	/** The default number of keys stored in one batch. */
+	public static final int DEFAULT_BATCH_SIZE = 100;
+
+	/** The default number of concurrent card creation requests. */
+	public static final int DEFAULT_SUBMIT_CONCURRENCY = 10;
+
+	private VirgilClient client;
+
+	private int generationThreads = Runtime.getRuntime().availableProcessors();
+
+	private int submitConcurrency = DEFAULT_SUBMIT_CONCURRENCY;
+
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	private String password;
+
+	private String appId;
+
+	private PrivateKey appKey;
+
+	private ProgressListener progressListener;
+
+	/**
+	 * Create a new instance of {@code VirgilKeyProvisioner} which creates
+	 * cards with client configured by {@link VirgilConfig#init(String)}.
+	 *
+	 */
+	public VirgilKeyProvisioner() {
+	}
+
+	/**
+	 * Create a new instance of {@code VirgilKeyProvisioner}
+	 *
+	 * @param client
+	 *            the client which creates cards.
+	 */
+	public VirgilKeyProvisioner(VirgilClient client) {
+		if (client == null) {
+			throw new NullArgumentException("client");
+		}
+		this.client = client;
+	}
+
+	/**
+	 * Provisions keys and cards for devices.
+	 * 
+	 * @param devices
+	 *            the devices to provision.
+	 * @return the results in the same order as devices.
+	 * 
+	 * @throws NullArgumentException
+	 *             if devices list is null.
+	 */
+	public List<Result> provision(List<Device> devices) {
+		if (devices == null) {
+			throw new NullArgumentException("devices");
+		}
+
+		Crypto crypto = VirgilConfig.getService(Crypto.class);
+		KeyStorage storage = VirgilConfig.getService(KeyStorage.class);
+		RequestSigner signer = VirgilConfig.getService(RequestSigner.class);
+		VirgilClient client = (this.client != null) ? this.client : VirgilConfig.getService(VirgilClient.class);
+
+		Progress progress = new Progress(devices.size());
+		ExecutorService generationPool = Executors.newFixedThreadPool(generationThreads);
+		ExecutorService submitPool = Executors.newFixedThreadPool(submitConcurrency);
+		try {
+			List<GeneratedKey> submittedKeys = Collections.emptyList();
+			List<Future<Result>> submissions = Collections.emptyList();
+			for (int from = 0; from < devices.size(); from += batchSize) {
+				int to = Math.min(from + batchSize, devices.size());
+
+				List<Integer> generationIndexes = new ArrayList<>();
+				List<Future<GeneratedKey>> generations = new ArrayList<>();
+				for (int i = from; i < to; i++) {
+					Device device = devices.get(i);
+					if (storage.exists(device.getKeyName())) {
+						progress.completed(new Result(i, device, null, new VirgilKeyIsAlreadyExistsException()));
+						continue;
+					}
+					generationIndexes.add(i);
+					generations.add(generationPool.submit(new Generation(i, device, crypto, signer)));
+				}
+
+				// Cards of the previous batch are created while keys are
+				// generated
+				awaitAll(submittedKeys, submissions, progress);
+
+				List<GeneratedKey> generatedKeys = new ArrayList<>();
+				for (int i = 0; i < generations.size(); i++) {
+					try {
+						generatedKeys.add(generations.get(i).get());
+					} catch (ExecutionException e) {
+						int index = generationIndexes.get(i);
+						progress.completed(new Result(index, devices.get(index), null, e.getCause()));
+					}
+				}
+
+				submittedKeys = store(storage, generatedKeys, progress);
+				submissions = new ArrayList<>();
+				for (GeneratedKey generatedKey : submittedKeys) {
+					submissions.add(submitPool.submit(new Submission(generatedKey, storage, client)));
+				}
+			}
+			awaitAll(submittedKeys, submissions, progress);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new VirgilException(e);
+		} finally {
+			generationPool.shutdownNow();
+			submitPool.shutdownNow();
+		}
+
+		return Arrays.asList(progress.results);
+	}
+
+	/**
+	 * @param generationThreads
+	 *            the number of threads which generate key pairs and sign card
+	 *            requests.
+	 */
+	public void setGenerationThreads(int generationThreads) {
+		if (generationThreads <= 0) {
+			throw new IllegalArgumentException("generationThreads");
+		}
+		this.generationThreads = generationThreads;
+	}
+
+	/**
+	 * @param submitConcurrency
+	 *            the number of concurrent card creation requests.
+	 */
+	public void setSubmitConcurrency(int submitConcurrency) {
+		if (submitConcurrency <= 0) {
+			throw new IllegalArgumentException("submitConcurrency");
+		}
+		this.submitConcurrency = submitConcurrency;
+	}
+
+	/**
+	 * @param batchSize
+	 *            the number of keys stored in one batch.
+	 */
+	public void setBatchSize(int batchSize) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("batchSize");
+		}
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * @param password
+	 *            the password which protects stored private keys.
+	 */
+	public void setPassword(String password) {
+		this.password = password;
+	}
+
+	/**
+	 * Sets the application which signs card requests as authority.
+	 * 
+	 * @param appId
+	 *            the application identifier.
+	 * @param appKey
+	 *            the application private key.
+	 */
+	public void setAuthority(String appId, PrivateKey appKey) {
+		if (StringUtils.isBlank(appId)) {
+			throw new EmptyArgumentException("appId");
+		}
+		if (appKey == null) {
+			throw new NullArgumentException("appKey");
+		}
+		this.appId = appId;
+		this.appKey = appKey;
+	}
+
+	/**
+	 * @param progressListener
+	 *            the listener which is notified when each device is
+	 *            provisioned or failed.
+	 */
+	public void setProgressListener(ProgressListener progressListener) {
+		this.progressListener = progressListener;
+	}
+
+	private List<GeneratedKey> store(KeyStorage storage, List<GeneratedKey> generatedKeys, Progress progress) {
+		if (storage instanceof VirgilKeyStorage) {
+			List<KeyEntry> entries = new ArrayList<>(generatedKeys.size());
+			for (GeneratedKey generatedKey : generatedKeys) {
+				entries.add(generatedKey.entry);
+			}
+			try {
+				((VirgilKeyStorage) storage).storeAll(entries);
+				return generatedKeys;
+			} catch (RuntimeException e) {
+				// Store keys one by one to find which of them failed
+			}
+		}
+
+		List<GeneratedKey> storedKeys = new ArrayList<>(generatedKeys.size());
+		for (GeneratedKey generatedKey : generatedKeys) {
+			try {
+				storage.store(generatedKey.entry);
+				storedKeys.add(generatedKey);
+			} catch (KeyEntryAlreadyExistsException e) {
+				if (isStored(storage, generatedKey.entry)) {
+					storedKeys.add(generatedKey);
+				} else {
+					progress.completed(new Result(generatedKey.index, generatedKey.device, null,
+							new VirgilKeyIsAlreadyExistsException()));
+				}
+			} catch (RuntimeException e) {
+				progress.completed(new Result(generatedKey.index, generatedKey.device, null, e));
+			}
+		}
+		return storedKeys;
+	}
+
+	private boolean isStored(KeyStorage storage, KeyEntry entry) {
+		// Key could be stored by the failed batch already
+		try {
+			return Arrays.equals(entry.getValue(), storage.load(entry.getName()).getValue());
+		} catch (RuntimeException e) {
+			return false;
+		}
+	}
+
+	private void awaitAll(List<GeneratedKey> generatedKeys, List<Future<Result>> futures, Progress progress)
+			throws InterruptedException {
+		for (int i = 0; i < futures.size(); i++) {
+			try {
+				progress.completed(futures.get(i).get());
+			} catch (ExecutionException e) {
+				// Submission failed unexpectedly. Card could be created, so the
+				// key is kept
+				GeneratedKey generatedKey = generatedKeys.get(i);
+				progress.completed(new Result(generatedKey.index, generatedKey.device, null, e.getCause(),
+						generatedKey.request));
+			}
+		}
+	}
+
+	private static boolean isRejected(Throwable error) {
+		// Client wraps service response errors
+		for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+			if (cause instanceof VirgilServiceException) {
+				int statusCode = ((VirgilServiceException) cause).getHttpStatusCode();
+				if (statusCode == HttpStatus.SC_REQUEST_TIMEOUT || statusCode == 429) {
+					// Request could be accepted when repeated
+					return false;
+				}
+				if (statusCode >= HttpStatus.SC_BAD_REQUEST && statusCode < HttpStatus.SC_INTERNAL_SERVER_ERROR) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static void destroy(PrivateKey privateKey) {
+		if (privateKey instanceof Destroyable) {
+			try {
+				((Destroyable) privateKey).destroy();
+			} catch (DestroyFailedException e) {
+				// Key can't be destroyed, leave it to garbage collector
+			}
+		}
+	}
+
+	/**
+	 * A device to provision.
+	 */
+	public static class Device {
+		private final String keyName;
+		private final String identity;
+		private final String identityType;
+		private final Map<String, String> data;
+
+		/**
+		 * Create a new instance of {@code Device}
+		 *
+		 * @param keyName
+		 *            the name of the device key in key storage.
+		 * @param identity
+		 *            the card identity.
+		 * @param identityType
+		 *            the card identity type.
+		 */
+		public Device(String keyName, String identity, String identityType) {
+			this(keyName, identity, identityType, null);
+		}
+
+		/**
+		 * Create a new instance of {@code Device}
+		 *
+		 * @param keyName
+		 *            the name of the device key in key storage.
+		 * @param identity
+		 *            the card identity.
+		 * @param identityType
+		 *            the card identity type.
+		 * @param data
+		 *            the card data.
+		 */
+		public Device(String keyName, String identity, String identityType, Map<String, String> data) {
+			if (StringUtils.isBlank(keyName)) {
+				throw new EmptyArgumentException("keyName");
+			}
+			this.keyName = keyName;
+			this.identity = identity;
+			this.identityType = identityType;
+			this.data = data;
+		}
+
+		/**
+		 * @return the name of the device key in key storage.
+		 */
+		public String getKeyName() {
+			return keyName;
+		}
+
+		/**
+		 * @return the card identity.
+		 */
+		public String getIdentity() {
+			return identity;
+		}
+
+		/**
+		 * @return the card identity type.
+		 */
+		public String getIdentityType() {
+			return identityType;
+		}
+
+		/**
+		 * @return the card data.
+		 */
+		public Map<String, String> getData() {
+			return data;
+		}
+	}
+
+	/**
+	 * The status of device provisioning.
+	 */
+	public enum Status {
+		/** The key is stored and the card is created. */
+		PROVISIONED,
+		/** The device is not provisioned and its key is not stored. */
+		FAILED,
+		/**
+		 * The key is stored, but it's unknown whether the card was created.
+		 */
+		UNKNOWN
+	}
+
+	/**
+	 * The result of device provisioning.
+	 */
+	public static class Result {
+		private final int index;
+		private final Device device;
+		private final VirgilCard card;
+		private final Throwable error;
+		private final CreateCardRequest request;
+
+		Result(int index, Device device, VirgilCard card, Throwable error) {
+			this(index, device, card, error, null);
+		}
+
+		Result(int index, Device device, VirgilCard card, Throwable error, CreateCardRequest request) {
+			this.index = index;
+			this.device = device;
+			this.card = card;
+			this.error = error;
+			this.request = request;
+		}
+
+		/**
+		 * @return the provisioned device.
+		 */
+		public Device getDevice() {
+			return device;
+		}
+
+		/**
+		 * @return the created card or {@code null} if provisioning failed.
+		 */
+		public VirgilCard getCard() {
+			return card;
+		}
+
+		/**
+		 * @return the failure cause or {@code null} if device is
+		 *         provisioned.
+		 */
+		public Throwable getError() {
+			return error;
+		}
+
+		/**
+		 * @return the signed card request which could be submitted again if
+		 *         status is {@link Status#UNKNOWN}, otherwise {@code null}.
+		 */
+		public CreateCardRequest getRequest() {
+			return request;
+		}
+
+		/**
+		 * @return the provisioning status.
+		 */
+		public Status getStatus() {
+			if (error == null) {
+				return Status.PROVISIONED;
+			}
+			return (request != null) ? Status.UNKNOWN : Status.FAILED;
+		}
+
+		/**
+		 * @return {@code true} if device is provisioned.
+		 */
+		public boolean isSuccess() {
+			return error == null;
+		}
+	}
+
+	/**
+	 * A listener which is notified about provisioning progress. It's called
+	 * by the thread which started provisioning.
+	 */
+	public interface ProgressListener {
+
+		/**
+		 * Called when device is provisioned or failed.
+		 * 
+		 * @param result
+		 *            the device result.
+		 * @param completed
+		 *            the number of completed devices.
+		 * @param total
+		 *            the total number of devices.
+		 */
+		void onProgress(Result result, int completed, int total);
+	}
+
+	private class Progress {
+		private final Result[] results;
+		private int completed;
+
+		Progress(int total) {
+			this.results = new Result[total];
+		}
+
+		void completed(Result result) {
+			results[result.index] = result;
+			completed++;
+			if (progressListener != null) {
+				progressListener.onProgress(result, completed, results.length);
+			}
+		}
+	}
+
+	private static class GeneratedKey {
+		private final int index;
+		private final Device device;
+		private final KeyEntry entry;
+		private final CreateCardRequest request;
+
+		GeneratedKey(int index, Device device, KeyEntry entry, CreateCardRequest request) {
+			this.index = index;
+			this.device = device;
+			this.entry = entry;
+			this.request = request;
+		}
+	}
+
+	private class Generation implements Callable<GeneratedKey> {
+		private final int index;
+		private final Device device;
+		private final Crypto crypto;
+		private final RequestSigner signer;
+
+		Generation(int index, Device device, Crypto crypto, RequestSigner signer) {
+			this.index = index;
+			this.device = device;
+			this.crypto = crypto;
+			this.signer = signer;
+		}
+
+		@Override
+		public GeneratedKey call() {
+			KeyPair keyPair = crypto.generateKeys();
+			try {
+				byte[] exportedPrivateKey = crypto.exportPrivateKey(keyPair.getPrivateKey(), password);
+				byte[] exportedPublicKey = crypto.exportPublicKey(keyPair.getPublicKey());
+
+				CreateCardRequest request = new CreateCardRequest(device.getIdentity(), device.getIdentityType(),
+						exportedPublicKey, device.getData());
+				signer.selfSign(request, keyPair.getPrivateKey());
+				if (appId != null) {
+					signer.authoritySign(request, appId, appKey);
+				}
+
+				return new GeneratedKey(index, device, new VirgilKeyEntry(device.getKeyName(), exportedPrivateKey),
+						request);
+			} finally {
+				destroy(keyPair.getPrivateKey());
+			}
+		}
+	}
+
+	private static class Submission implements Callable<Result> {
+		private final GeneratedKey generatedKey;
+		private final KeyStorage storage;
+		private final VirgilClient client;
+
+		Submission(GeneratedKey generatedKey, KeyStorage storage, VirgilClient client) {
+			this.generatedKey = generatedKey;
+			this.storage = storage;
+			this.client = client;
+		}
+
+		@Override
+		public Result call() {
+			try {
+				VirgilCard card = new VirgilCard(client.createCard(generatedKey.request));
+				return new Result(generatedKey.index, generatedKey.device, card, null);
+			} catch (RuntimeException e) {
+				if (!isRejected(e)) {
+					// Card could be created, so the key is required
+					return new Result(generatedKey.index, generatedKey.device, null, e, generatedKey.request);
+				}
+				try {
+					storage.delete(generatedKey.device.getKeyName());
+				} catch (RuntimeException deleteError) {
+					// Key stays in storage, it's reported as failed anyway
+				}
+				return new Result(generatedKey.index, generatedKey.device, null, e);
+			}
+		}
+	}
+
+}
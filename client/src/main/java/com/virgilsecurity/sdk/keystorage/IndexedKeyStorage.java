@@ -0,0 +1,798 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.keystorage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import com.virgilsecurity.sdk.crypto.KeyEntry;
+import com.virgilsecurity.sdk.crypto.KeyStorage;
+import com.virgilsecurity.sdk.crypto.exception.KeyEntryAlreadyExistsException;
+import com.virgilsecurity.sdk.crypto.exception.KeyEntryNotFoundException;
+import com.virgilsecurity.sdk.crypto.exception.KeyStorageException;
+
+/**
+ * Storage of cryptographic keys in a single append-only file.
+ * 
+ * <p>
+ * Stored and deleted keys are appended to the file as records protected by a
+ * checksum. The location of each key is kept in an in-memory index which is
+ * built when the storage is opened, so {@link #exists(String)} doesn't touch
+ * the file system and {@link #load(String)} reads the key from the
+ * memory-mapped file. A record torn by a crash is dropped when the storage is
+ * opened. Deleted keys are removed from the file by compaction, which is
+ * started automatically when most of the file is occupied by deleted keys. If
+ * automatic compaction fails, the file is kept as is and compaction is retried
+ * when more keys are deleted.
+ * </p>
+ * <p>
+ * If sync on write is enabled, {@link #store(KeyEntry)} and
+ * {@link #delete(String)} return when the record is flushed to the storage
+ * device. Records written concurrently are flushed together, so a single fsync
+ * covers many writes.
+ * </p>
+ * <p>
+ * The file is locked exclusively while the storage is open, so it can't be
+ * opened by another process or another storage instance at the same time.
+ * </p>
+ * 
+ * <pre>
+ * file   = magic(4) version(1) record*
+ * record = length(4) crc32(4) payload
+ * store  = 1 name(UTF) value_length(4) value metadata_count(4) (key(UTF) value(UTF))*
+ * delete = 2 name(UTF)
+ * </pre>
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class IndexedKeyStorage implements KeyStorage, Closeable {
+
+	private static final byte[] MAGIC = { 'V', 'K', 'S', 'T' };
+	private static final int VERSION = 1;
+	private static final int FILE_HEADER_SIZE = MAGIC.length + 1;
+	private static final int RECORD_HEADER_SIZE = 8;
+
+	private static final byte RECORD_STORE = 1;
+	private static final byte RECORD_DELETE = 2;
+
+	// Files with less garbage are not worth rewriting
+	private static final long MIN_COMPACTION_GARBAGE = 1024 * 1024;
+
+	// Records appended after the file was mapped are read with positional
+	// reads until the unmapped tail grows to this size
+	private static final long REMAP_THRESHOLD = 1024 * 1024;
+
+	private final Path file;
+
+	private final boolean syncOnWrite;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Condition syncDone = lock.newCondition();
+
+	private Map<String, Location> index = new HashMap<>();
+
+	private FileChannel channel;
+
+	private MappedByteBuffer mapped;
+
+	private long mappedSize;
+
+	private long size;
+
+	private long garbageSize;
+
+	// Garbage size which starts automatic compaction. It's raised when
+	// compaction fails, so it's not retried on each delete
+	private long compactionThreshold = MIN_COMPACTION_GARBAGE;
+
+	// Bytes written since the file was opened and the part of them which is
+	// flushed to the storage device
+	private long writtenBytes;
+
+	private long syncedBytes;
+
+	private boolean syncing;
+
+	/**
+	 * Create a new instance of {@code IndexedKeyStorage} which flushes each
+	 * write to the storage device.
+	 *
+	 * @param path
+	 *            The path to key storage file. The file is created if it
+	 *            doesn't exist.
+	 * @throws KeyStorageException
+	 *             if file couldn't be opened, it's not a key storage file or
+	 *             it's used by another storage.
+	 */
+	public IndexedKeyStorage(String path) {
+		this(path, true);
+	}
+
+	/**
+	 * Create a new instance of {@code IndexedKeyStorage}
+	 *
+	 * @param path
+	 *            The path to key storage file. The file is created if it
+	 *            doesn't exist.
+	 * @param syncOnWrite
+	 *            {@code true} to flush each write to the storage device before
+	 *            it returns, {@code false} to flush on {@link #flush()} and
+	 *            {@link #close()} only.
+	 * @throws KeyStorageException
+	 *             if file couldn't be opened, it's not a key storage file or
+	 *             it's used by another storage.
+	 */
+	public IndexedKeyStorage(String path, boolean syncOnWrite) {
+		this.file = Paths.get(path).toAbsolutePath();
+		this.syncOnWrite = syncOnWrite;
+		try {
+			open();
+		} catch (IOException | RuntimeException e) {
+			closeChannel();
+			if (e instanceof KeyStorageException) {
+				throw (KeyStorageException) e;
+			}
+			throw new KeyStorageException(e);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.virgilsecurity.sdk.crypto.KeyStorage#store(com.virgilsecurity.
+	 * sdk.crypto.KeyEntry)
+	 */
+	@Override
+	public void store(KeyEntry keyEntry) {
+		String name = normalize(keyEntry.getName());
+		byte[] record = encodeStore(name, keyEntry);
+
+		lock.lock();
+		try {
+			ensureOpen();
+			if (index.containsKey(name)) {
+				throw new KeyEntryAlreadyExistsException();
+			}
+			Location location = append(record);
+			index.put(name, location);
+			if (syncOnWrite) {
+				try {
+					sync(writtenBytes);
+				} catch (IOException | RuntimeException e) {
+					// Lock was released while syncing, so the key could be
+					// deleted meanwhile
+					if (index.get(name) == location) {
+						index.remove(name);
+						byte[] deleteRecord = encodeDelete(name);
+						if (!revert(location, deleteRecord)) {
+							garbageSize += location.length + deleteRecord.length;
+						}
+					}
+					throw e;
+				}
+			}
+		} catch (IOException e) {
+			throw new KeyStorageException(e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.virgilsecurity.sdk.crypto.KeyStorage#load(java.lang.String)
+	 */
+	@Override
+	public KeyEntry load(String keyName) {
+		byte[] payload;
+		lock.lock();
+		try {
+			ensureOpen();
+			Location location = (keyName == null) ? null : index.get(normalize(keyName));
+			if (location == null) {
+				throw new KeyEntryNotFoundException();
+			}
+			payload = read(location);
+		} catch (IOException e) {
+			throw new KeyStorageException(e);
+		} finally {
+			lock.unlock();
+		}
+
+		try {
+			VirgilKeyEntry entry = decodeStore(payload);
+			entry.setName(keyName);
+
+			return entry;
+		} catch (IOException e) {
+			throw new KeyStorageException(e);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.virgilsecurity.sdk.crypto.KeyStorage#exists(java.lang.String)
+	 */
+	@Override
+	public boolean exists(String keyName) {
+		if (keyName == null) {
+			return false;
+		}
+		lock.lock();
+		try {
+			ensureOpen();
+			return index.containsKey(normalize(keyName));
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.virgilsecurity.sdk.crypto.KeyStorage#delete(java.lang.String)
+	 */
+	@Override
+	public void delete(String keyName) {
+		if (keyName == null) {
+			throw new KeyEntryNotFoundException();
+		}
+		String name = normalize(keyName);
+		byte[] record = encodeDelete(name);
+
+		lock.lock();
+		try {
+			ensureOpen();
+			Location location = index.get(name);
+			if (location == null) {
+				throw new KeyEntryNotFoundException();
+			}
+			Location deleteLocation = append(record);
+			index.remove(name);
+			garbageSize += location.length + record.length;
+			if (syncOnWrite) {
+				try {
+					sync(writtenBytes);
+				} catch (IOException | RuntimeException e) {
+					// Lock was released while syncing, so the key could be
+					// stored again meanwhile
+					if (!index.containsKey(name)) {
+						index.put(name, location);
+						garbageSize -= location.length;
+						byte[] storeRecord = toRecord(read(location));
+						if (revert(deleteLocation, storeRecord)) {
+							garbageSize -= record.length;
+						} else {
+							garbageSize += storeRecord.length;
+						}
+					}
+					throw e;
+				}
+			}
+
+			if (garbageSize >= compactionThreshold && garbageSize * 2 > size) {
+				try {
+					compactFile();
+				} catch (IOException | RuntimeException e) {
+					// Key is deleted already, retry when there is more garbage
+					compactionThreshold = garbageSize + MIN_COMPACTION_GARBAGE;
+				}
+			}
+		} catch (IOException e) {
+			throw new KeyStorageException(e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Rewrites the storage file without deleted keys. The new file replaces
+	 * the old one atomically, so the storage stays consistent if the process
+	 * is interrupted.
+	 * 
+	 * @throws KeyStorageException
+	 *             if file couldn't be rewritten.
+	 */
+	public void compact() {
+		lock.lock();
+		try {
+			ensureOpen();
+			compactFile();
+		} catch (IOException e) {
+			throw new KeyStorageException(e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Flushes all written keys to the storage device.
+	 * 
+	 * @throws KeyStorageException
+	 *             if data couldn't be flushed.
+	 */
+	public void flush() {
+		lock.lock();
+		try {
+			ensureOpen();
+			sync(writtenBytes);
+		} catch (IOException e) {
+			throw new KeyStorageException(e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return the number of keys in the storage.
+	 */
+	public int size() {
+		lock.lock();
+		try {
+			return index.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return the storage file size in bytes.
+	 */
+	public long getFileSize() {
+		lock.lock();
+		try {
+			return size;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Flushes written keys and closes the storage file.
+	 * 
+	 * @throws IOException
+	 *             if data couldn't be flushed.
+	 */
+	@Override
+	public void close() throws IOException {
+		lock.lock();
+		try {
+			if (channel == null) {
+				return;
+			}
+			try {
+				sync(writtenBytes);
+			} finally {
+				awaitSyncing();
+				index = new HashMap<>();
+				closeChannel();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void open() throws IOException {
+		Path dir = file.getParent();
+		if (dir != null) {
+			Files.createDirectories(dir);
+		}
+		channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+		lockFile(channel);
+
+		long fileSize = channel.size();
+		if (fileSize == 0) {
+			ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+			header.put(MAGIC).put((byte) VERSION).flip();
+			write(header, 0);
+			channel.force(true);
+			size = FILE_HEADER_SIZE;
+			return;
+		}
+		if (fileSize < FILE_HEADER_SIZE) {
+			throw new KeyStorageException("Not a key storage file");
+		}
+		if (fileSize > Integer.MAX_VALUE) {
+			throw new KeyStorageException("Key storage file is too large");
+		}
+
+		map(fileSize);
+		ByteBuffer buffer = mapped.duplicate();
+		byte[] magic = new byte[MAGIC.length];
+		buffer.get(magic);
+		if (!Arrays.equals(MAGIC, magic)) {
+			throw new KeyStorageException("Not a key storage file");
+		}
+		int version = buffer.get() & 0xFF;
+		if (version != VERSION) {
+			throw new KeyStorageException("Unsupported key storage version " + version);
+		}
+
+		// Build index from records up to the first torn or corrupted one
+		size = FILE_HEADER_SIZE;
+		while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+			int length = buffer.getInt();
+			int crc = buffer.getInt();
+			if (length <= 0 || length > buffer.remaining()) {
+				break;
+			}
+			byte[] payload = new byte[length];
+			buffer.get(payload);
+			if (crc != checksum(payload)) {
+				break;
+			}
+			Location location = new Location(size, RECORD_HEADER_SIZE + length);
+			replay(payload, location);
+			size += location.length;
+		}
+
+		if (size < fileSize) {
+			channel.truncate(size);
+			channel.force(true);
+			map(size);
+		}
+	}
+
+	private void replay(byte[] payload, Location location) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+		byte type = in.readByte();
+		String name = in.readUTF();
+
+		Location previous;
+		if (type == RECORD_STORE) {
+			previous = index.put(name, location);
+		} else if (type == RECORD_DELETE) {
+			previous = index.remove(name);
+			garbageSize += location.length;
+		} else {
+			throw new KeyStorageException("Unknown key storage record " + type);
+		}
+		if (previous != null) {
+			garbageSize += previous.length;
+		}
+	}
+
+	private Location append(byte[] record) throws IOException {
+		if (size + record.length > Integer.MAX_VALUE) {
+			throw new KeyStorageException("Key storage file is too large");
+		}
+		Location location = new Location(size, record.length);
+		write(ByteBuffer.wrap(record), size);
+		size += record.length;
+		writtenBytes += record.length;
+
+		return location;
+	}
+
+	/**
+	 * Reverts the appended record which couldn't be flushed. The record is
+	 * cut off when it's the last one, otherwise the compensating record is
+	 * appended. Failures are ignored, the operation is reported as failed
+	 * anyway.
+	 * 
+	 * @return {@code true} if the record was cut off.
+	 */
+	private boolean revert(Location appended, byte[] compensatingRecord) {
+		boolean truncated = false;
+		try {
+			// Mapped part of the file can't be truncated
+			if (appended.offset + appended.length == size && appended.offset >= mappedSize) {
+				channel.truncate(appended.offset);
+				size = appended.offset;
+				truncated = true;
+			} else {
+				append(compensatingRecord);
+			}
+			channel.force(false);
+		} catch (IOException | RuntimeException e) {
+			// Ignore
+		}
+		return truncated;
+	}
+
+	private byte[] read(Location location) throws IOException {
+		if (size - mappedSize > REMAP_THRESHOLD) {
+			map(size);
+		}
+
+		int length = location.length - RECORD_HEADER_SIZE;
+		ByteBuffer payload = ByteBuffer.allocate(length);
+		if (location.offset + location.length <= mappedSize) {
+			ByteBuffer buffer = mapped.duplicate();
+			buffer.position((int) location.offset + RECORD_HEADER_SIZE);
+			buffer.limit(buffer.position() + length);
+			payload.put(buffer);
+		} else {
+			long position = location.offset + RECORD_HEADER_SIZE;
+			while (payload.hasRemaining()) {
+				int n = channel.read(payload, position);
+				if (n < 0) {
+					throw new KeyStorageException("Unexpected end of key storage file");
+				}
+				position += n;
+			}
+		}
+		return payload.array();
+	}
+
+	/**
+	 * Waits until data is flushed to the storage device up to the
+	 * {@code target} bytes. The lock is released while flushing, so writes
+	 * made meanwhile are flushed by the next call together.
+	 */
+	private void sync(long target) throws IOException {
+		while (syncedBytes < target) {
+			if (syncing) {
+				syncDone.awaitUninterruptibly();
+				continue;
+			}
+			syncing = true;
+			long written = writtenBytes;
+			FileChannel syncChannel = channel;
+			lock.unlock();
+			try {
+				syncChannel.force(false);
+			} finally {
+				lock.lock();
+				syncing = false;
+				syncDone.signalAll();
+			}
+			syncedBytes = Math.max(syncedBytes, written);
+		}
+	}
+
+	private void awaitSyncing() {
+		while (syncing) {
+			syncDone.awaitUninterruptibly();
+		}
+	}
+
+	private void compactFile() throws IOException {
+		awaitSyncing();
+
+		Path dir = file.getParent();
+		Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+		Map<String, Location> compacted = new HashMap<>(index.size() * 2);
+		long compactedSize = FILE_HEADER_SIZE;
+		FileChannel out = null;
+		MappedByteBuffer compactedMapped;
+		try {
+			// The channel follows the file when it's moved, so the storage
+			// switches to the new file only when nothing else could fail
+			out = FileChannel.open(tmp, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			lockFile(out);
+			ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+			header.put(MAGIC).put((byte) VERSION).flip();
+			write(out, header, 0);
+
+			for (Entry<String, Location> entry : index.entrySet()) {
+				Location location = entry.getValue();
+				long transferred = 0;
+				while (transferred < location.length) {
+					transferred += channel.transferTo(location.offset + transferred, location.length - transferred,
+							out.position(compactedSize + transferred));
+				}
+				compacted.put(entry.getKey(), new Location(compactedSize, location.length));
+				compactedSize += location.length;
+			}
+			out.force(true);
+			compactedMapped = out.map(FileChannel.MapMode.READ_ONLY, 0, compactedSize);
+
+			Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException | RuntimeException e) {
+			if (out != null) {
+				out.close();
+			}
+			Files.deleteIfExists(tmp);
+			throw e;
+		}
+		syncDirectory(dir);
+
+		closeChannel();
+		channel = out;
+		mapped = compactedMapped;
+		mappedSize = compactedSize;
+		index = compacted;
+		size = compactedSize;
+		garbageSize = 0;
+		compactionThreshold = MIN_COMPACTION_GARBAGE;
+		syncedBytes = writtenBytes;
+	}
+
+	private void map(long length) throws IOException {
+		mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+		mappedSize = length;
+	}
+
+	private void write(ByteBuffer buffer, long position) throws IOException {
+		write(channel, buffer, position);
+	}
+
+	private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+
+	private static void syncDirectory(Path dir) {
+		// Make rename durable. Not supported on some platforms
+		try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			// Ignore
+		}
+	}
+
+	private static void lockFile(FileChannel channel) throws IOException {
+		// Lock is released when channel is closed
+		FileLock fileLock;
+		try {
+			fileLock = channel.tryLock();
+		} catch (OverlappingFileLockException e) {
+			fileLock = null;
+		}
+		if (fileLock == null) {
+			throw new KeyStorageException("Key storage file is used by another storage");
+		}
+	}
+
+	private void closeChannel() {
+		mapped = null;
+		mappedSize = 0;
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				// Ignore
+			}
+			channel = null;
+		}
+	}
+
+	private void ensureOpen() {
+		if (channel == null) {
+			throw new KeyStorageException("Key storage is closed");
+		}
+	}
+
+	private static String normalize(String keyName) {
+		return keyName.toLowerCase(Locale.ROOT);
+	}
+
+	private static byte[] encodeStore(String name, KeyEntry keyEntry) {
+		try {
+			ByteArrayOutputStream payload = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(payload);
+			out.writeByte(RECORD_STORE);
+			out.writeUTF(name);
+
+			byte[] value = keyEntry.getValue();
+			if (value == null) {
+				value = new byte[0];
+			}
+			out.writeInt(value.length);
+			out.write(value);
+
+			Map<String, String> metadata = keyEntry.getMetadata();
+			if (metadata == null) {
+				out.writeInt(0);
+			} else {
+				out.writeInt(metadata.size());
+				for (Entry<String, String> entry : metadata.entrySet()) {
+					out.writeUTF(entry.getKey());
+					out.writeUTF(entry.getValue());
+				}
+			}
+			return toRecord(payload.toByteArray());
+		} catch (IOException e) {
+			throw new KeyStorageException(e);
+		}
+	}
+
+	private static byte[] encodeDelete(String name) {
+		try {
+			ByteArrayOutputStream payload = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(payload);
+			out.writeByte(RECORD_DELETE);
+			out.writeUTF(name);
+
+			return toRecord(payload.toByteArray());
+		} catch (IOException e) {
+			throw new KeyStorageException(e);
+		}
+	}
+
+	private static VirgilKeyEntry decodeStore(byte[] payload) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+		in.readByte();
+		in.readUTF();
+
+		byte[] value = new byte[in.readInt()];
+		in.readFully(value);
+
+		VirgilKeyEntry entry = new VirgilKeyEntry(null, value);
+		int metadataCount = in.readInt();
+		for (int i = 0; i < metadataCount; i++) {
+			entry.getMetadata().put(in.readUTF(), in.readUTF());
+		}
+		return entry;
+	}
+
+	private static byte[] toRecord(byte[] payload) {
+		ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+		record.putInt(payload.length).putInt(checksum(payload)).put(payload);
+
+		return record.array();
+	}
+
+	private static int checksum(byte[] payload) {
+		CRC32 crc = new CRC32();
+		crc.update(payload, 0, payload.length);
+
+		return (int) crc.getValue();
+	}
+
+	private static class Location {
+		private final long offset;
+		private final int length;
+
+		Location(long offset, int length) {
+			this.offset = offset;
+			this.length = length;
+		}
+	}
+
+}
@@ -29,12 +29,28 @@
  */
 package com.virgilsecurity.sdk.keystorage;
 
-import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
 import java.nio.charset.Charset;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -46,12 +62,39 @@ import com.virgilsecurity.sdk.crypto.exception.KeyStorageException;
 
 /**
  * Virgil implementation of a storage facility for cryptographic keys.
+ * 
+ * <p>
+ * Each key is stored in its own file. A key file is written to a temporary file
+ * first and renamed atomically, so a key is either stored completely or not
+ * stored at all. Writes of the same key are serialized between threads with
+ * striped locks and between processes with file locks.
+ * </p>
  *
  * @author Andrii Iakovenko
  *
  */
 public class VirgilKeyStorage implements KeyStorage {
 
+	private static final Gson GSON = new GsonBuilder().create();
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final String LOCK_FILE_NAME = ".virgil-keys.lock";
+
+	private static final int LOCK_STRIPES = 64;
+
+	private static final ReentrantLock[] LOCKS = new ReentrantLock[LOCK_STRIPES];
+
+	// Lock files are never closed, because closing a channel releases all
+	// locks which the process holds on the file
+	private static final Map<Path, FileChannel> LOCK_FILES = new HashMap<>();
+
+	static {
+		for (int i = 0; i < LOCK_STRIPES; i++) {
+			LOCKS[i] = new ReentrantLock();
+		}
+	}
+
 	private String keysPath;
 
 	/**
@@ -84,27 +127,28 @@ public class VirgilKeyStorage implements KeyStorage {
 	 */
 	@Override
 	public void store(KeyEntry keyEntry) {
-		File dir = new File(keysPath);
+		Path dir = getKeysDir();
+		storeEntry(dir, keyEntry);
+		syncDirectory(dir);
+	}
 
-		if (dir.exists()) {
-			if (!dir.isDirectory()) {
-				throw new InvalidPathException(keysPath, "Is not a directory");
+	/**
+	 * Stores the key entries. Key files are flushed one by one, but the keys
+	 * folder is flushed once for all of them.
+	 * 
+	 * @param keyEntries
+	 *            The key entries.
+	 * @throws KeyEntryAlreadyExistsException
+	 *             if some key already exists. Keys preceding it are stored.
+	 */
+	public void storeAll(Collection<? extends KeyEntry> keyEntries) {
+		Path dir = getKeysDir();
+		try {
+			for (KeyEntry keyEntry : keyEntries) {
+				storeEntry(dir, keyEntry);
 			}
-		} else {
-			dir.mkdirs();
-		}
-
-		String name = keyEntry.getName();
-		if (exists(name)) {
-			throw new KeyEntryAlreadyExistsException();
-		}
-
-		String json = getGson().toJson(keyEntry);
-		File file = new File(dir, name.toLowerCase());
-		try (FileOutputStream os = new FileOutputStream(file)) {
-			os.write(json.getBytes(Charset.forName("UTF-8")));
-		} catch (Exception e) {
-			throw new KeyStorageException(e);
+		} finally {
+			syncDirectory(dir);
 		}
 	}
 
@@ -115,32 +159,43 @@ public class VirgilKeyStorage implements KeyStorage {
 	 */
 	@Override
 	public KeyEntry load(String keyName) {
-		if (!exists(keyName)) {
+		if (keyName == null) {
 			throw new KeyEntryNotFoundException();
 		}
 
-		File file = new File(keysPath, keyName.toLowerCase());
-		try (FileInputStream is = new FileInputStream(file)) {
-			ByteArrayOutputStream os = new ByteArrayOutputStream();
+		// Key files are replaced atomically, so they are read without lock
+		Path file = Paths.get(keysPath, toFileName(keyName));
+		try {
+			byte[] bytes = Files.readAllBytes(file);
 
-			byte[] buffer = new byte[4096];
-			int n = 0;
-			while (-1 != (n = is.read(buffer))) {
-				os.write(buffer, 0, n);
-			}
-
-			byte[] bytes = os.toByteArray();
-
-			VirgilKeyEntry entry = getGson().fromJson(new String(bytes, Charset.forName("UTF-8")),
-					VirgilKeyEntry.class);
+			VirgilKeyEntry entry = GSON.fromJson(new String(bytes, UTF8), VirgilKeyEntry.class);
 			entry.setName(keyName);
 
 			return entry;
+		} catch (NoSuchFileException e) {
+			throw new KeyEntryNotFoundException();
 		} catch (Exception e) {
 			throw new KeyStorageException(e);
 		}
 	}
 
+	/**
+	 * Loads the key entries.
+	 * 
+	 * @param keyNames
+	 *            The key names.
+	 * @return The key entries in the same order as key names.
+	 * @throws KeyEntryNotFoundException
+	 *             if some key doesn't exist.
+	 */
+	public List<KeyEntry> loadAll(Collection<String> keyNames) {
+		List<KeyEntry> entries = new ArrayList<>(keyNames.size());
+		for (String keyName : keyNames) {
+			entries.add(load(keyName));
+		}
+		return entries;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -151,7 +206,7 @@ public class VirgilKeyStorage implements KeyStorage {
 		if (keyName == null) {
 			return false;
 		}
-		File file = new File(keysPath, keyName);
+		File file = new File(keysPath, toFileName(keyName));
 		return file.exists();
 	}
 
@@ -162,19 +217,130 @@ public class VirgilKeyStorage implements KeyStorage {
 	 */
 	@Override
 	public void delete(String keyName) {
-		if (!exists(keyName)) {
+		if (keyName == null) {
 			throw new KeyEntryNotFoundException();
 		}
 
-		File file = new File(keysPath, keyName);
-		file.delete();
+		Path dir = Paths.get(keysPath);
+		String fileName = toFileName(keyName);
+		if (!Files.exists(dir.resolve(fileName))) {
+			throw new KeyEntryNotFoundException();
+		}
+
+		try (KeyLock lock = lock(dir, fileName)) {
+			if (!Files.deleteIfExists(dir.resolve(fileName))) {
+				throw new KeyEntryNotFoundException();
+			}
+		} catch (IOException e) {
+			throw new KeyStorageException(e);
+		}
+		syncDirectory(dir);
 	}
 
-	private Gson getGson() {
-		GsonBuilder builder = new GsonBuilder();
-		Gson gson = builder.create();
+	private Path getKeysDir() {
+		File dir = new File(keysPath);
 
-		return gson;
+		if (dir.exists()) {
+			if (!dir.isDirectory()) {
+				throw new InvalidPathException(keysPath, "Is not a directory");
+			}
+		} else {
+			dir.mkdirs();
+		}
+		return dir.toPath();
+	}
+
+	private void storeEntry(Path dir, KeyEntry keyEntry) {
+		String fileName = toFileName(keyEntry.getName());
+		Path file = dir.resolve(fileName);
+		if (Files.exists(file)) {
+			throw new KeyEntryAlreadyExistsException();
+		}
+
+		byte[] json = GSON.toJson(keyEntry).getBytes(UTF8);
+		try (KeyLock lock = lock(dir, fileName)) {
+			if (Files.exists(file)) {
+				throw new KeyEntryAlreadyExistsException();
+			}
+
+			Path tmp = Files.createTempFile(dir, "." + fileName, ".tmp");
+			try {
+				try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+					ByteBuffer buffer = ByteBuffer.wrap(json);
+					while (buffer.hasRemaining()) {
+						channel.write(buffer);
+					}
+					channel.force(true);
+				}
+				Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+			} catch (FileAlreadyExistsException e) {
+				throw new KeyEntryAlreadyExistsException();
+			} finally {
+				Files.deleteIfExists(tmp);
+			}
+		} catch (IOException e) {
+			throw new KeyStorageException(e);
+		}
+	}
+
+	/**
+	 * Locks the key file for writing by other threads and processes.
+	 */
+	private static KeyLock lock(Path dir, String fileName) throws IOException {
+		int stripe = (fileName.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES;
+		ReentrantLock lock = LOCKS[stripe];
+		lock.lock();
+		try {
+			FileLock fileLock = getLockFile(dir).lock(stripe, 1, false);
+			return new KeyLock(lock, fileLock);
+		} catch (IOException | RuntimeException e) {
+			lock.unlock();
+			throw e;
+		}
+	}
+
+	private static FileChannel getLockFile(Path dir) throws IOException {
+		Path path = dir.resolve(LOCK_FILE_NAME).toAbsolutePath().normalize();
+		synchronized (LOCK_FILES) {
+			FileChannel channel = LOCK_FILES.get(path);
+			if (channel == null || !channel.isOpen()) {
+				channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+				LOCK_FILES.put(path, channel);
+			}
+			return channel;
+		}
+	}
+
+	private static void syncDirectory(Path dir) {
+		// Make renames durable. Not supported on some platforms
+		try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			// Ignore
+		}
+	}
+
+	private static String toFileName(String keyName) {
+		return keyName.toLowerCase(Locale.ROOT);
+	}
+
+	private static final class KeyLock implements Closeable {
+		private final ReentrantLock lock;
+		private final FileLock fileLock;
+
+		KeyLock(ReentrantLock lock, FileLock fileLock) {
+			this.lock = lock;
+			this.fileLock = fileLock;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				fileLock.release();
+			} finally {
+				lock.unlock();
+			}
+		}
 	}
 
 }
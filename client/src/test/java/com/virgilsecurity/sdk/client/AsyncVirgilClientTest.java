@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.virgilsecurity.sdk.client.exceptions.VirgilCardServiceException;
+import com.virgilsecurity.sdk.client.model.Card;
+import com.virgilsecurity.sdk.crypto.exceptions.NullArgumentException;
+
+/**
+ * Unit tests for {@link AsyncVirgilClient}
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class AsyncVirgilClientTest {
+
+	private static final String UNREACHABLE_ADDRESS = "http://127.0.0.1:1";
+
+	private AsyncVirgilClient client;
+
+	@Before
+	public void setUp() {
+		VirgilClientContext ctx = new VirgilClientContext("token");
+		ctx.setCardsServiceAddress(UNREACHABLE_ADDRESS);
+		ctx.setReadOnlyCardsServiceAddress(UNREACHABLE_ADDRESS);
+
+		client = new AsyncVirgilClient(ctx);
+	}
+
+	@After
+	public void tearDown() {
+		client.close();
+	}
+
+	@Test(expected = NullArgumentException.class)
+	public void create_nullClient() {
+		new AsyncVirgilClient(null, null);
+	}
+
+	@Test
+	public void getCard_failure() throws InterruptedException {
+		Future<Card> future = client.getCard("card-id");
+		try {
+			future.get(30, TimeUnit.SECONDS);
+			fail("Request to unreachable service should fail");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof VirgilCardServiceException);
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void getCard_callback() throws InterruptedException {
+		final CountDownLatch latch = new CountDownLatch(1);
+		final AtomicReference<Card> result = new AtomicReference<>();
+		final AtomicReference<Throwable> error = new AtomicReference<>();
+
+		client.getCard("card-id", new ResponseCallback<Card>() {
+
+			@Override
+			public void onSuccess(Card card) {
+				result.set(card);
+				latch.countDown();
+			}
+
+			@Override
+			public void onFailure(Throwable e) {
+				error.set(e);
+				latch.countDown();
+			}
+		});
+
+		assertTrue(latch.await(30, TimeUnit.SECONDS));
+		assertNull(result.get());
+		assertEquals(VirgilCardServiceException.class, error.get().getClass());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void create_zeroConcurrency() {
+		new AsyncVirgilClient(new VirgilClientContext("token"), 0);
+	}
+
+	@Test
+	public void create_concurrency() {
+		VirgilClientContext ctx = new VirgilClientContext("token");
+		new AsyncVirgilClient(ctx, 100).close();
+
+		// Limits are raised on a copy of the context
+		assertEquals(10, ctx.getMaxConnectionsPerRoute());
+		assertEquals(20, ctx.getMaxConnectionsTotal());
+	}
+
+	@Test
+	public void close_pendingRequests() throws Exception {
+		try (final ServerSocket server = new ServerSocket(0, 10, InetAddress.getByName("127.0.0.1"))) {
+			// Server never responds, so the first request blocks the only
+			// thread
+			String address = "http://127.0.0.1:" + server.getLocalPort();
+			VirgilClientContext ctx = new VirgilClientContext("token");
+			ctx.setCardsServiceAddress(address);
+			ctx.setReadOnlyCardsServiceAddress(address);
+			AsyncVirgilClient client = new AsyncVirgilClient(ctx, 1);
+
+			Future<Card> running = client.getCard("card-1");
+			Future<Card> pending = client.getCard("card-2");
+			Thread.sleep(200);
+
+			Thread serverCloser = new Thread() {
+
+				@Override
+				public void run() {
+					try {
+						Thread.sleep(500);
+						server.close();
+					} catch (Exception e) {
+						// Test fails on timeout
+					}
+				}
+			};
+			serverCloser.start();
+			client.close();
+
+			try {
+				pending.get(30, TimeUnit.SECONDS);
+				fail("Pending request should be cancelled");
+			} catch (CancellationException e) {
+				assertTrue(pending.isCancelled());
+			}
+			assertTrue(running.isDone());
+			try {
+				running.get();
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof VirgilCardServiceException);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.virgilsecurity.sdk.client.model.GlobalIdentityType;
+import com.virgilsecurity.sdk.client.requests.CreateCardRequest;
+import com.virgilsecurity.sdk.client.utils.ConvertionUtils;
+import com.virgilsecurity.sdk.crypto.Crypto;
+import com.virgilsecurity.sdk.crypto.Fingerprint;
+import com.virgilsecurity.sdk.crypto.KeyPair;
+import com.virgilsecurity.sdk.crypto.VirgilCrypto;
+
+/**
+ * Unit tests for {@linkplain RequestSigner}
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class RequestSignerTest {
+
+	private static final String APP_ID = "app-id";
+
+	private Crypto crypto;
+	private RequestSigner signer;
+	private KeyPair keyPair;
+	private List<CreateCardRequest> requests;
+
+	@Before
+	public void setUp() {
+		crypto = new VirgilCrypto();
+		signer = new RequestSigner(crypto);
+		keyPair = crypto.generateKeys();
+
+		requests = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			requests.add(new CreateCardRequest("user" + i + "@mail.com", GlobalIdentityType.EMAIL.getValue(),
+					crypto.exportPublicKey(keyPair.getPublicKey())));
+		}
+	}
+
+	@Test
+	public void selfSign_batch() {
+		signer.selfSign(requests, keyPair.getPrivateKey());
+
+		for (CreateCardRequest request : requests) {
+			Fingerprint fingerprint = crypto
+					.calculateFingerprint(ConvertionUtils.base64ToArray(request.getSnapshot()));
+			assertEquals(1, request.getSignatures().size());
+
+			String signature = request.getSignatures().get(fingerprint.toHex());
+			assertTrue(crypto.verify(fingerprint.getValue(), ConvertionUtils.base64ToArray(signature),
+					keyPair.getPublicKey()));
+		}
+	}
+
+	@Test
+	public void authoritySign_batch() {
+		signer.authoritySign(requests, APP_ID, keyPair.getPrivateKey());
+
+		for (CreateCardRequest request : requests) {
+			Fingerprint fingerprint = crypto
+					.calculateFingerprint(ConvertionUtils.base64ToArray(request.getSnapshot()));
+
+			String signature = request.getSignatures().get(APP_ID);
+			assertTrue(crypto.verify(fingerprint.getValue(), ConvertionUtils.base64ToArray(signature),
+					keyPair.getPublicKey()));
+		}
+	}
+
+	@Test
+	public void selfSign_batchCustomCrypto() {
+		// Crypto implementation which has no batch signing
+		Crypto customCrypto = (Crypto) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { Crypto.class }, new InvocationHandler() {
+
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						try {
+							return method.invoke(crypto, args);
+						} catch (InvocationTargetException e) {
+							throw e.getCause();
+						}
+					}
+				});
+		new RequestSigner(customCrypto).selfSign(requests, keyPair.getPrivateKey());
+
+		for (CreateCardRequest request : requests) {
+			Fingerprint fingerprint = crypto
+					.calculateFingerprint(ConvertionUtils.base64ToArray(request.getSnapshot()));
+
+			String signature = request.getSignatures().get(fingerprint.toHex());
+			assertTrue(crypto.verify(fingerprint.getValue(), ConvertionUtils.base64ToArray(signature),
+					keyPair.getPublicKey()));
+		}
+	}
+
+}
@@ -58,4 +58,28 @@ public class VirgilClientContextTest {
 		assertTrue(VirgilClientContext.isValidURI("https://www.virgilsecurity.com/about/what-is-virgil"));
 	}
 
+	@Test
+	public void connectionPool_defaults() {
+		VirgilClientContext ctx = new VirgilClientContext("token");
+		assertTrue(ctx.getMaxConnectionsTotal() > 0);
+		assertTrue(ctx.getMaxConnectionsPerRoute() > 0);
+		assertTrue(ctx.getMaxConnectionsPerRoute() <= ctx.getMaxConnectionsTotal());
+		assertEquals(0, ctx.getConnectionTimeToLive());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setMaxConnectionsTotal_zero() {
+		new VirgilClientContext("token").setMaxConnectionsTotal(0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setMaxConnectionsPerRoute_negative() {
+		new VirgilClientContext("token").setMaxConnectionsPerRoute(-1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setMaxIdleTime_negative() {
+		new VirgilClientContext("token").setMaxIdleTime(-1);
+	}
+
 }
@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.virgilsecurity.sdk.client.exceptions.CardValidationException;
+import com.virgilsecurity.sdk.client.exceptions.GetCardsException;
+import com.virgilsecurity.sdk.client.exceptions.VirgilCardServiceException;
+import com.virgilsecurity.sdk.client.model.Card;
+import com.virgilsecurity.sdk.client.model.CardScope;
+import com.virgilsecurity.sdk.client.model.dto.SignedResponseModel;
+import com.virgilsecurity.sdk.client.utils.ConvertionUtils;
+import com.virgilsecurity.sdk.client.utils.VirgilCardCache;
+import com.virgilsecurity.sdk.crypto.exceptions.NullArgumentException;
+
+/**
+ * Unit tests for {@link VirgilClient} which don't require Virgil Services.
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class VirgilClientOfflineTest {
+
+	private static final String UNREACHABLE_ADDRESS = "http://127.0.0.1:1";
+
+	private VirgilClient client;
+	private VirgilCardCache cache;
+
+	@Before
+	public void setUp() {
+		VirgilClientContext ctx = new VirgilClientContext("token");
+		ctx.setCardsServiceAddress(UNREACHABLE_ADDRESS);
+		ctx.setReadOnlyCardsServiceAddress(UNREACHABLE_ADDRESS);
+
+		client = new VirgilClient(ctx);
+		cache = new VirgilCardCache();
+		client.setCardCache(cache);
+	}
+
+	@After
+	public void tearDown() {
+		client.close();
+	}
+
+	@Test(expected = NullArgumentException.class)
+	public void getCards_null() {
+		client.getCards(null);
+	}
+
+	@Test
+	public void getCards_cached() {
+		Card alice = createCard("1");
+		Card bob = createCard("2");
+		cache.putCard(alice);
+		cache.putCard(bob);
+		cache.putMissingCard("3");
+
+		Map<String, Card> cards = client.getCards(Arrays.asList("2", "1", "3", "2"));
+		assertEquals(Arrays.asList("2", "1"), Arrays.asList(cards.keySet().toArray()));
+		assertSame(alice, cards.get("1"));
+		assertSame(bob, cards.get("2"));
+	}
+
+	@Test
+	public void getCards_partialFailure() {
+		Card alice = createCard("1");
+		cache.putCard(alice);
+
+		try {
+			client.getCards(Arrays.asList("1", "2", "3", "3"));
+			fail("Cards couldn't be loaded from unreachable service");
+		} catch (GetCardsException e) {
+			assertEquals(1, e.getCards().size());
+			assertSame(alice, e.getCards().get("1"));
+			assertEquals(2, e.getErrors().size());
+			assertTrue(e.getErrors().get("2") instanceof VirgilCardServiceException);
+			assertTrue(e.getErrors().get("3") instanceof VirgilCardServiceException);
+		}
+	}
+
+	@Test
+	public void getCards_invalidCard() throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 0), 0);
+		server.createContext("/v4/card/", new HttpHandler() {
+
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				String path = exchange.getRequestURI().getPath();
+				String cardId = path.substring(path.lastIndexOf('/') + 1);
+				String snapshot = "{\"identity\":\"user" + cardId + "\",\"public_key\":\"AQID\"}";
+				byte[] body = cardJson(cardId, snapshot, null).getBytes("UTF-8");
+				exchange.sendResponseHeaders(200, body.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(body);
+				}
+			}
+		});
+		server.start();
+		try {
+			String address = "http://127.0.0.1:" + server.getAddress().getPort();
+			VirgilClientContext ctx = new VirgilClientContext("token");
+			ctx.setReadOnlyCardsServiceAddress(address);
+			try (VirgilClient client = new VirgilClient(ctx)) {
+				client.setCardValidator(new CardValidator() {
+
+					@Override
+					public boolean validate(Card card) {
+						return !"2".equals(card.getId());
+					}
+				});
+
+				try {
+					client.getCards(Arrays.asList("1", "2"));
+					fail("Invalid card should be reported");
+				} catch (GetCardsException e) {
+					assertEquals(1, e.getCards().size());
+					assertEquals("1", e.getCards().get("1").getId());
+					assertEquals(1, e.getErrors().size());
+					Exception error = e.getErrors().get("2");
+					assertTrue(error instanceof VirgilCardServiceException);
+					assertTrue(error.getCause() instanceof CardValidationException);
+				}
+			}
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	@Test
+	public void readCards() throws IOException {
+		String body = "[" + cardJson("1", "{\"identity\":\"alice\",\"identity_type\":\"member\","
+				+ "\"public_key\":\"AQID\",\"scope\":\"global\",\"data\":{\"key\":\"value\"},"
+				+ "\"info\":{\"device\":\"phone\",\"device_name\":\"Alice phone\"}}",
+				"{\"alice-id\":\"BAUG\",\"app-id\":\"BwgJ\"}")
+				+ "," + cardJson("2", "{\"identity\":\"bob\",\"identity_type\":\"member\","
+						+ "\"public_key\":\"CgsM\",\"scope\":\"application\"}", null)
+				+ "]";
+
+		List<Card> cards = VirgilClient.readCards(new StringReader(body));
+		List<Card> expectedCards = parseCards(body);
+
+		assertEquals(2, cards.size());
+		for (int i = 0; i < cards.size(); i++) {
+			assertCardEquals(expectedCards.get(i), cards.get(i));
+		}
+
+		Card alice = cards.get(0);
+		assertEquals("1", alice.getId());
+		assertEquals("alice", alice.getIdentity());
+		assertEquals(CardScope.GLOBAL, alice.getScope());
+		assertEquals("value", alice.getData().get("key"));
+		assertEquals("Alice phone", alice.getDeviceName());
+		assertArrayEquals(new byte[] { 4, 5, 6 }, alice.getSignatures().get("alice-id"));
+		assertEquals(0, cards.get(1).getSignatures().size());
+	}
+
+	@Test
+	public void readCards_empty() throws IOException {
+		assertEquals(0, VirgilClient.readCards(new StringReader("[]")).size());
+		assertEquals(0, parseCards("[]").size());
+	}
+
+	@Test
+	public void readCards_malformed() {
+		String card = cardJson("1", "{\"identity\":\"alice\"}", null);
+		List<String> bodies = Arrays.asList("", "{}", "[" + card, "[" + card + ",{\"id\":", "[" + card + "}]",
+				"[{\"id\":\"2\",\"meta\":[]}]");
+
+		for (String body : bodies) {
+			try {
+				VirgilClient.readCards(new StringReader(body));
+				fail("Malformed body is parsed: " + body);
+			} catch (IOException | RuntimeException e) {
+				// Client reports any read failure as service exception
+			}
+		}
+	}
+
+	private static String cardJson(String id, String snapshot, String signatures) {
+		return "{\"id\":\"" + id + "\",\"content_snapshot\":\"" + ConvertionUtils.toBase64String(snapshot)
+				+ "\",\"meta\":{" + (signatures == null ? "" : "\"signs\":" + signatures + ",")
+				+ "\"card_version\":\"4.0\"}}";
+	}
+
+	/**
+	 * Parses response as a whole, the way client did before streaming.
+	 */
+	private static List<Card> parseCards(String body) {
+		SignedResponseModel[] responseModels = ConvertionUtils.getGson().fromJson(body, SignedResponseModel[].class);
+
+		List<Card> cards = new ArrayList<>();
+		for (SignedResponseModel responseModel : responseModels) {
+			cards.add(VirgilClient.responseToCard(responseModel));
+		}
+		return cards;
+	}
+
+	private static void assertCardEquals(Card expected, Card actual) {
+		assertEquals(expected.getId(), actual.getId());
+		assertArrayEquals(expected.getSnapshot(), actual.getSnapshot());
+		assertEquals(expected.getIdentity(), actual.getIdentity());
+		assertEquals(expected.getIdentityType(), actual.getIdentityType());
+		assertArrayEquals(expected.getPublicKey(), actual.getPublicKey());
+		assertEquals(expected.getScope(), actual.getScope());
+		assertEquals(expected.getData(), actual.getData());
+		assertEquals(expected.getDevice(), actual.getDevice());
+		assertEquals(expected.getDeviceName(), actual.getDeviceName());
+		assertEquals(expected.getVersion(), actual.getVersion());
+		assertEquals(expected.getSignatures().keySet(), actual.getSignatures().keySet());
+		for (String key : expected.getSignatures().keySet()) {
+			assertArrayEquals(expected.getSignatures().get(key), actual.getSignatures().get(key));
+		}
+	}
+
+	private Card createCard(String id) {
+		Card card = new Card();
+		card.setId(id);
+
+		return card;
+	}
+
+}
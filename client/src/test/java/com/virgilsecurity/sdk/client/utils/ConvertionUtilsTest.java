@@ -31,6 +31,8 @@ package com.virgilsecurity.sdk.client.utils;
 
 import static org.junit.Assert.assertEquals;
 
+import java.io.ByteArrayInputStream;
+
 import org.junit.Test;
 
 /**
@@ -66,4 +68,22 @@ public class ConvertionUtilsTest {
 		assertEquals(TEXT, str);
 	}
 
+	@Test
+	public void toString_inputStream() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			sb.append(TEXT);
+		}
+		String text = sb.toString();
+
+		String str = ConvertionUtils.toString(new ByteArrayInputStream(ConvertionUtils.toBytes(text)));
+		assertEquals(text, str);
+	}
+
+	@Test
+	public void toString_emptyInputStream() {
+		String str = ConvertionUtils.toString(new ByteArrayInputStream(new byte[0]));
+		assertEquals("", str);
+	}
+
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.client.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link VerifiedSignatureCache}
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class VerifiedSignatureCacheTest {
+
+	private static final byte[] FINGERPRINT = ConvertionUtils.toBytes("fingerprint");
+	private static final byte[] VERIFIER_KEY = ConvertionUtils.toBytes("key");
+	private static final byte[] SIGNATURE = ConvertionUtils.toBytes("signature");
+
+	private VerifiedSignatureCache cache;
+
+	@Before
+	public void setUp() {
+		cache = new VerifiedSignatureCache(2);
+	}
+
+	@Test
+	public void isVerified() {
+		cache.putVerified(FINGERPRINT, "verifier", VERIFIER_KEY, SIGNATURE);
+
+		assertTrue(cache.isVerified(FINGERPRINT, "verifier", VERIFIER_KEY, SIGNATURE));
+		assertTrue(cache.isVerified(FINGERPRINT.clone(), "verifier", VERIFIER_KEY.clone(), SIGNATURE.clone()));
+		assertEquals(2, cache.getHitCount());
+		assertEquals(0, cache.getMissCount());
+	}
+
+	@Test
+	public void isVerified_differentTriple() {
+		cache.putVerified(FINGERPRINT, "verifier", VERIFIER_KEY, SIGNATURE);
+
+		assertFalse(cache.isVerified(ConvertionUtils.toBytes("other"), "verifier", VERIFIER_KEY, SIGNATURE));
+		assertFalse(cache.isVerified(FINGERPRINT, "other", VERIFIER_KEY, SIGNATURE));
+		assertFalse(cache.isVerified(FINGERPRINT, "verifier", ConvertionUtils.toBytes("other"), SIGNATURE));
+		assertFalse(cache.isVerified(FINGERPRINT, "verifier", VERIFIER_KEY, ConvertionUtils.toBytes("other")));
+		assertEquals(4, cache.getMissCount());
+	}
+
+	@Test
+	public void putVerified_evict() {
+		cache.putVerified(FINGERPRINT, "1", VERIFIER_KEY, SIGNATURE);
+		cache.putVerified(FINGERPRINT, "2", VERIFIER_KEY, SIGNATURE);
+
+		// Touch first entry, so the second one is the eldest
+		assertTrue(cache.isVerified(FINGERPRINT, "1", VERIFIER_KEY, SIGNATURE));
+		cache.putVerified(FINGERPRINT, "3", VERIFIER_KEY, SIGNATURE);
+
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+		assertTrue(cache.isVerified(FINGERPRINT, "1", VERIFIER_KEY, SIGNATURE));
+		assertFalse(cache.isVerified(FINGERPRINT, "2", VERIFIER_KEY, SIGNATURE));
+	}
+
+	@Test
+	public void clear() {
+		cache.putVerified(FINGERPRINT, "verifier", VERIFIER_KEY, SIGNATURE);
+		cache.clear();
+
+		assertEquals(0, cache.size());
+		assertFalse(cache.isVerified(FINGERPRINT, "verifier", VERIFIER_KEY, SIGNATURE));
+	}
+
+}
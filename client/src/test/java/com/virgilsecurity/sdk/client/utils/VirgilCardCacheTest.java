@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.client.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.virgilsecurity.sdk.client.model.Card;
+import com.virgilsecurity.sdk.client.model.dto.SearchCriteria;
+
+/**
+ * Unit tests for {@link VirgilCardCache}
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class VirgilCardCacheTest {
+
+	private VirgilCardCache cache;
+
+	@Before
+	public void setUp() {
+		cache = new VirgilCardCache(3, 60000, 60000);
+	}
+
+	@Test
+	public void getCard() {
+		Card card = createCard("1", "alice");
+		cache.putCard(card);
+
+		assertSame(card, cache.getCard("1"));
+		assertNull(cache.getCard("2"));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	public void getCard_expired() throws InterruptedException {
+		cache = new VirgilCardCache(3, 1, 1);
+		cache.putCard(createCard("1", "alice"));
+		cache.putMissingCard("2");
+
+		Thread.sleep(10);
+
+		assertNull(cache.getCard("1"));
+		assertFalse(cache.isCardMissing("2"));
+		assertEquals(0, cache.getWeight());
+	}
+
+	@Test
+	public void putMissingCard() {
+		cache.putMissingCard("1");
+
+		assertTrue(cache.isCardMissing("1"));
+		assertNull(cache.getCard("1"));
+		assertFalse(cache.isCardMissing("2"));
+	}
+
+	@Test
+	public void putMissingCard_countedOnce() {
+		cache.putMissingCard("1");
+
+		// Lookup of the client: get card, then check if it's missing
+		assertNull(cache.getCard("1"));
+		assertTrue(cache.isCardMissing("1"));
+		assertNull(cache.getCard("2"));
+		assertFalse(cache.isCardMissing("2"));
+
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	public void evictLeastRecentlyUsed() {
+		cache.putCard(createCard("1", "alice"));
+		cache.putCard(createCard("2", "bob"));
+		cache.putCard(createCard("3", "carol"));
+		// Touch first card, so the second one becomes eldest
+		cache.getCard("1");
+		cache.putCard(createCard("4", "dave"));
+
+		assertNotNull(cache.getCard("1"));
+		assertNull(cache.getCard("2"));
+		assertNotNull(cache.getCard("3"));
+		assertNotNull(cache.getCard("4"));
+		assertEquals(1, cache.getEvictionCount());
+		assertEquals(3, cache.getWeight());
+	}
+
+	@Test
+	public void getSearchResult() {
+		List<Card> cards = Arrays.asList(createCard("1", "alice"), createCard("2", "bob"));
+		cache.putSearchResult(SearchCriteria.byIdentities(Arrays.asList("alice", "bob")), cards);
+
+		List<Card> cachedCards = cache.getSearchResult(SearchCriteria.byIdentities(Arrays.asList("bob", "alice")));
+		assertEquals(cards, cachedCards);
+		assertNull(cache.getSearchResult(SearchCriteria.byIdentity("alice")));
+		assertEquals(2, cache.getWeight());
+	}
+
+	@Test
+	public void removeCard() {
+		cache.putCard(createCard("1", "alice"));
+		cache.putSearchResult(SearchCriteria.byIdentity("alice"), Arrays.asList(createCard("1", "alice")));
+
+		cache.removeCard("1");
+
+		assertNull(cache.getCard("1"));
+		assertNull(cache.getSearchResult(SearchCriteria.byIdentity("alice")));
+		assertEquals(0, cache.getWeight());
+	}
+
+	@Test
+	public void removeSearchResults() {
+		cache.putSearchResult(SearchCriteria.byIdentity("alice"), Arrays.asList(createCard("1", "alice")));
+		cache.putSearchResult(SearchCriteria.byIdentity("bob"), Arrays.asList(createCard("2", "bob")));
+
+		cache.removeSearchResults("alice");
+
+		assertNull(cache.getSearchResult(SearchCriteria.byIdentity("alice")));
+		assertNotNull(cache.getSearchResult(SearchCriteria.byIdentity("bob")));
+	}
+
+	private Card createCard(String id, String identity) {
+		Card card = new Card();
+		card.setId(id);
+		card.setIdentity(identity);
+
+		return card;
+	}
+
+}
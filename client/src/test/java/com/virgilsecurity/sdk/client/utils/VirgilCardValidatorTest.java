@@ -29,17 +29,26 @@
  */
 package com.virgilsecurity.sdk.client.utils;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 
 import com.virgilsecurity.sdk.client.model.Card;
 import com.virgilsecurity.sdk.crypto.Crypto;
+import com.virgilsecurity.sdk.crypto.KeyPair;
 import com.virgilsecurity.sdk.crypto.VirgilCrypto;
 
 /**
@@ -50,8 +59,11 @@ import com.virgilsecurity.sdk.crypto.VirgilCrypto;
  */
 public class VirgilCardValidatorTest {
 
+	private static final String SERVICE_CARD_ID = "3e29d43373348cfb373b7eae189214dc01d7237765e572db685839b64adca853";
+
 	private Crypto crypto;
 	private VirgilCardValidator validator;
+	private ExecutorService executor;
 
 	@Before
 	public void setUp() {
@@ -59,6 +71,12 @@ public class VirgilCardValidatorTest {
 		validator = new VirgilCardValidator(crypto);
 		validator.addVerifier("1ef2e45f6100792bc600828f1425b27ce7655a80543118f375bd894d7313aa00",
 				ConvertionUtils.base64ToArray("MCowBQYDK2VwAyEAMUJeUOZuodMPxg3/MrMxPVw+2+WYGrHcQ5S4NISIvSA="));
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdown();
 	}
 
 	@Test
@@ -94,4 +112,113 @@ public class VirgilCardValidatorTest {
 		assertTrue(validator.validate(card));
 	}
 
+	@Test
+	public void validate_batch() {
+		KeyPair appKeys = crypto.generateKeys();
+		KeyPair fakeServiceKeys = crypto.generateKeys();
+
+		VirgilCardValidator validator = new VirgilCardValidator(crypto);
+		validator.addVerifier("app", crypto.exportPublicKey(appKeys.getPublicKey()));
+
+		List<Card> cards = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			Card card = new Card();
+			card.setVersion("4.0");
+			card.setSnapshot(ConvertionUtils.toBytes("snapshot" + i));
+
+			byte[] fingerprint = crypto.calculateFingerprint(card.getSnapshot()).getValue();
+			Map<String, byte[]> signatures = new HashMap<>();
+			signatures.put("app", crypto.sign(fingerprint, appKeys.getPrivateKey()));
+			if (i % 2 == 0) {
+				signatures.put(SERVICE_CARD_ID, crypto.sign(fingerprint, fakeServiceKeys.getPrivateKey()));
+			}
+			card.setSignatures(signatures);
+			cards.add(card);
+		}
+		Card legacyCard = new Card();
+		legacyCard.setVersion("3.0");
+		cards.add(legacyCard);
+
+		List<Card> invalidCards = validator.validate(cards);
+		assertEquals(10, invalidCards.size());
+
+		validator.setExecutor(executor);
+		List<Card> invalidCardsParallel = validator.validate(cards);
+		assertEquals(invalidCards.size(), invalidCardsParallel.size());
+		assertTrue(invalidCardsParallel.containsAll(invalidCards));
+	}
+
+	@Test
+	public void validate_batchLegacyCards() {
+		validator.setExecutor(executor);
+
+		Card card1 = new Card();
+		card1.setVersion("3.0");
+		Card card2 = new Card();
+		card2.setVersion("3.0");
+
+		assertTrue(validator.validate(Arrays.asList(card1, card2)).isEmpty());
+	}
+
+	@Test
+	public void validate_signatureCache() {
+		KeyPair appKeys = crypto.generateKeys();
+		KeyPair fakeServiceKeys = crypto.generateKeys();
+
+		VirgilCardValidator validator = new VirgilCardValidator(crypto);
+		validator.addVerifier("app", crypto.exportPublicKey(appKeys.getPublicKey()));
+		VerifiedSignatureCache cache = new VerifiedSignatureCache();
+		validator.setSignatureCache(cache);
+
+		Card card = new Card();
+		card.setVersion("4.0");
+		card.setSnapshot(ConvertionUtils.toBytes("snapshot"));
+
+		byte[] fingerprint = crypto.calculateFingerprint(card.getSnapshot()).getValue();
+		Map<String, byte[]> signatures = new HashMap<>();
+		signatures.put("app", crypto.sign(fingerprint, appKeys.getPrivateKey()));
+		signatures.put(SERVICE_CARD_ID, crypto.sign(fingerprint, fakeServiceKeys.getPrivateKey()));
+		card.setSignatures(signatures);
+
+		assertFalse(validator.validate(card));
+		assertFalse(validator.validate(card));
+
+		// Only valid signature is cached
+		assertEquals(1, cache.size());
+		assertEquals(1, cache.getHitCount());
+
+		validator.setExecutor(executor);
+		assertEquals(2, validator.validate(Arrays.asList(card, card)).size());
+		assertEquals(1, cache.size());
+		assertEquals(3, cache.getHitCount());
+	}
+
+	@Test
+	public void validate_signatureCacheVerifierReplaced() {
+		KeyPair appKeys = crypto.generateKeys();
+		VerifiedSignatureCache cache = new VerifiedSignatureCache();
+
+		VirgilCardValidator validator = new VirgilCardValidator(crypto);
+		validator.addVerifier("app", crypto.exportPublicKey(appKeys.getPublicKey()));
+		validator.setSignatureCache(cache);
+
+		Card card = new Card();
+		card.setVersion("4.0");
+		card.setSnapshot(ConvertionUtils.toBytes("snapshot"));
+
+		byte[] fingerprint = crypto.calculateFingerprint(card.getSnapshot()).getValue();
+		Map<String, byte[]> signatures = new HashMap<>();
+		signatures.put("app", crypto.sign(fingerprint, appKeys.getPrivateKey()));
+		signatures.put(SERVICE_CARD_ID, crypto.sign(fingerprint, appKeys.getPrivateKey()));
+		card.setSignatures(signatures);
+
+		assertFalse(validator.validate(card));
+		assertEquals(1, cache.size());
+
+		// Another key registered under the same verifier identifier
+		validator.addVerifier("app", crypto.exportPublicKey(crypto.generateKeys().getPublicKey()));
+		assertFalse(validator.validate(card));
+		assertEquals(0, cache.getHitCount());
+	}
+
 }
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.highlevel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.virgilsecurity.sdk.crypto.Crypto;
+import com.virgilsecurity.sdk.crypto.PublicKey;
+import com.virgilsecurity.sdk.crypto.VirgilCrypto;
+
+/**
+ * Unit tests for {@linkplain PublicKeyCache}.
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class PublicKeyCacheTest {
+
+	private Crypto crypto;
+	private PublicKeyCache cache;
+
+	@Before
+	public void setUp() {
+		crypto = new VirgilCrypto();
+		cache = new PublicKeyCache(2);
+	}
+
+	@Test
+	public void importPublicKey() {
+		PublicKey publicKey = crypto.generateKeys().getPublicKey();
+		byte[] publicKeyData = crypto.exportPublicKey(publicKey);
+
+		PublicKey importedKey = cache.importPublicKey(crypto, publicKeyData).getPublicKey();
+		assertArrayEquals(publicKey.getId(), importedKey.getId());
+		assertArrayEquals(publicKey.getValue(), importedKey.getValue());
+
+		assertSame(importedKey, cache.importPublicKey(crypto, publicKeyData.clone()).getPublicKey());
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void importPublicKey_anotherCrypto() {
+		byte[] publicKeyData = crypto.exportPublicKey(crypto.generateKeys().getPublicKey());
+
+		PublicKey importedKey = cache.importPublicKey(crypto, publicKeyData).getPublicKey();
+		assertNotSame(importedKey, cache.importPublicKey(new VirgilCrypto(), publicKeyData).getPublicKey());
+	}
+
+	@Test
+	public void importPublicKey_immutable() {
+		PublicKey publicKey = crypto.generateKeys().getPublicKey();
+		byte[] publicKeyData = crypto.exportPublicKey(publicKey);
+
+		PublicKey importedKey = cache.importPublicKey(crypto, publicKeyData).getPublicKey();
+		importedKey.getId()[0] ^= 1;
+		importedKey.getValue()[0] ^= 1;
+
+		assertArrayEquals(publicKey.getId(), importedKey.getId());
+		assertArrayEquals(publicKey.getValue(), importedKey.getValue());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void create_zeroSize() {
+		new PublicKeyCache(0);
+	}
+
+	@Test
+	public void importPublicKey_evict() {
+		byte[] publicKeyData1 = crypto.exportPublicKey(crypto.generateKeys().getPublicKey());
+		PublicKey importedKey1 = cache.importPublicKey(crypto, publicKeyData1).getPublicKey();
+		for (int i = 0; i < 2; i++) {
+			cache.importPublicKey(crypto, crypto.exportPublicKey(crypto.generateKeys().getPublicKey()));
+		}
+
+		assertEquals(2, cache.size());
+		assertNotSame(importedKey1, cache.importPublicKey(crypto, publicKeyData1).getPublicKey());
+	}
+
+}
@@ -31,6 +31,7 @@ package com.virgilsecurity.sdk.highlevel;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.UUID;
@@ -42,6 +43,7 @@ import com.virgilsecurity.sdk.client.model.Card;
 import com.virgilsecurity.sdk.client.utils.ConvertionUtils;
 import com.virgilsecurity.sdk.crypto.Crypto;
 import com.virgilsecurity.sdk.crypto.KeyPair;
+import com.virgilsecurity.sdk.crypto.PublicKey;
 
 /**
  * Unit tests for {@linkplain VirgilCard}.
@@ -95,6 +97,15 @@ public class VirgilCardTest {
 		assertTrue(virgilCard.verify(data, signature));
 	}
 
+	@Test
+	public void getImportedPublicKey() {
+		PublicKey publicKey = virgilCard.getImportedPublicKey(crypto);
+
+		assertArrayEquals(keyPair.getPublicKey().getId(), publicKey.getId());
+		assertSame(publicKey, virgilCard.getImportedPublicKey(crypto));
+		assertSame(publicKey, new VirgilCard(card).getImportedPublicKey(crypto));
+	}
+
 	@Test
 	public void encryptText() {
 		byte[] cipherData = virgilCard.encryptText(TEXT);
@@ -30,6 +30,7 @@
 package com.virgilsecurity.sdk.highlevel;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 
@@ -66,6 +67,15 @@ public class VirgilConfigTest {
 		assertThat(VirgilConfig.getService(VirgilClient.class), instanceOf(VirgilClient.class));
 	}
 
+	@Test
+	public void init_twice() {
+		VirgilConfig.init(TOKEN);
+		VirgilClient client = VirgilConfig.getService(VirgilClient.class);
+
+		VirgilConfig.init(TOKEN);
+		assertNotSame(client, VirgilConfig.getService(VirgilClient.class));
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void init_nullAccessToken() {
 		VirgilConfig.init(null);
@@ -104,6 +114,14 @@ public class VirgilConfigTest {
 		assertSame(storage, VirgilConfig.getService(KeyStorage.class));
 	}
 
+	@Test
+	public void reset_crypto() {
+		Crypto crypto = VirgilConfig.getService(Crypto.class);
+		VirgilConfig.reset();
+
+		assertNotSame(crypto, VirgilConfig.getService(Crypto.class));
+	}
+
 	@Test(expected = ServiceNotRegisteredException.class)
 	public void reset() {
 		VirgilConfig.init(TOKEN);
@@ -112,6 +130,22 @@ public class VirgilConfigTest {
 		VirgilConfig.getService(VirgilClient.class);
 	}
 
+	@Test
+	public void reset_publicKeyCache() {
+		PublicKeyCache cache = VirgilConfig.getPublicKeyCache();
+		VirgilConfig.reset();
+
+		assertNotSame(cache, VirgilConfig.getPublicKeyCache());
+	}
+
+	@Test
+	public void setPublicKeyCacheSize() {
+		PublicKeyCache cache = VirgilConfig.getPublicKeyCache();
+		VirgilConfig.setPublicKeyCacheSize(10);
+
+		assertNotSame(cache, VirgilConfig.getPublicKeyCache());
+	}
+
 	@After
 	public void tearDown() {
 		VirgilConfig.reset();
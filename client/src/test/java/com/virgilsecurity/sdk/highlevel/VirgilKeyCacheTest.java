@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.highlevel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.virgilsecurity.sdk.crypto.Crypto;
+import com.virgilsecurity.sdk.crypto.KeyPair;
+import com.virgilsecurity.sdk.crypto.KeyStorage;
+import com.virgilsecurity.sdk.keystorage.IndexedKeyStorage;
+
+/**
+ * Unit tests for {@linkplain VirgilKeyCache}.
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class VirgilKeyCacheTest {
+
+	private static final String PASSWORD = "password";
+
+	private File file;
+	private IndexedKeyStorage storage;
+	private VirgilKeyCache cache;
+	private String keyName;
+
+	@Before
+	public void setUp() {
+		file = new File(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString() + ".keys");
+		storage = new IndexedKeyStorage(file.getAbsolutePath(), false);
+		VirgilConfig.setKeyStorage(storage);
+
+		cache = new VirgilKeyCache(2, VirgilKeyCache.DEFAULT_IDLE_TIMEOUT);
+		VirgilConfig.setKeyCache(cache);
+
+		keyName = UUID.randomUUID().toString();
+		VirgilKey.create(keyName, PASSWORD);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		VirgilConfig.reset();
+		storage.close();
+		file.delete();
+	}
+
+	@Test
+	public void load() {
+		VirgilKey key = VirgilKey.load(keyName, PASSWORD);
+		VirgilKey cachedKey = VirgilKey.load(keyName, PASSWORD);
+
+		assertNotSame(key, cachedKey);
+		assertNotSame(key.getKeyPair().getPrivateKey(), cachedKey.getKeyPair().getPrivateKey());
+		assertArrayEquals(key.getKeyPair().getPrivateKey().getValue(),
+				cachedKey.getKeyPair().getPrivateKey().getValue());
+		assertArrayEquals(key.getKeyPair().getPublicKey().getValue(),
+				cachedKey.getKeyPair().getPublicKey().getValue());
+		assertNotNull(VirgilKey.load(keyName.toUpperCase(), PASSWORD));
+		assertEquals(1, cache.size());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(2, cache.getHitCount());
+	}
+
+	@Test
+	public void load_anotherPassword() {
+		VirgilKey.load(keyName, PASSWORD);
+
+		try {
+			VirgilKey.load(keyName, "wrong password");
+		} catch (Exception e) {
+			// Password is checked by key import
+		}
+		assertEquals(0, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+	}
+
+	@Test
+	public void load_anotherStorage() throws IOException {
+		VirgilKey key = VirgilKey.load(keyName, PASSWORD);
+		Crypto crypto = VirgilConfig.getService(Crypto.class);
+		KeyStorage storage = VirgilConfig.getService(KeyStorage.class);
+
+		KeyPair keyPair = cache.get(keyName, PASSWORD, crypto, storage);
+		assertArrayEquals(key.getKeyPair().getPrivateKey().getValue(), keyPair.getPrivateKey().getValue());
+
+		File anotherFile = new File(file.getAbsolutePath() + ".another");
+		try (IndexedKeyStorage anotherStorage = new IndexedKeyStorage(anotherFile.getAbsolutePath())) {
+			assertNull(cache.get(keyName, PASSWORD, crypto, anotherStorage));
+		} finally {
+			anotherFile.delete();
+		}
+	}
+
+	@Test
+	public void evict() {
+		VirgilKey key = VirgilKey.load(keyName, PASSWORD);
+		byte[] privateKeyValue = key.getKeyPair().getPrivateKey().getValue().clone();
+
+		cache.evict(keyName);
+		assertEquals(0, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+
+		VirgilKey loadedKey = VirgilKey.load(keyName, PASSWORD);
+		assertEquals(2, cache.getMissCount());
+		assertArrayEquals(privateKeyValue, loadedKey.getKeyPair().getPrivateKey().getValue());
+	}
+
+	@Test
+	public void evict_loadedKeyIsUsable() {
+		VirgilKey.load(keyName, PASSWORD);
+		VirgilKey key = VirgilKey.load(keyName, PASSWORD);
+		cache.evictAll();
+
+		byte[] data = "data".getBytes();
+		byte[] signature = key.sign(data);
+		Crypto crypto = VirgilConfig.getService(Crypto.class);
+		assertTrue(crypto.verify(data, signature, key.getKeyPair().getPublicKey()));
+	}
+
+	@Test
+	public void evict_maxSize() {
+		VirgilKey key = VirgilKey.load(keyName, PASSWORD);
+		for (int i = 0; i < 2; i++) {
+			String name = UUID.randomUUID().toString();
+			VirgilKey.create(name);
+			VirgilKey.load(name);
+		}
+
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+
+		VirgilKey.load(keyName, PASSWORD);
+		assertEquals(0, cache.getHitCount());
+		assertArrayEquals(key.getKeyPair().getPrivateKey().getValue(),
+				VirgilKey.load(keyName, PASSWORD).getKeyPair().getPrivateKey().getValue());
+	}
+
+	@Test
+	public void load_concurrentEviction() throws Exception {
+		final List<String> keyNames = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			String name = UUID.randomUUID().toString();
+			VirgilKey.create(name);
+			keyNames.add(name);
+		}
+		final Crypto crypto = VirgilConfig.getService(Crypto.class);
+		final byte[] data = "data".getBytes();
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Void>> futures = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				final int offset = i;
+				futures.add(executor.submit(new Callable<Void>() {
+
+					@Override
+					public Void call() throws Exception {
+						for (int j = 0; j < 50; j++) {
+							// More keys than the cache holds, so keys are
+							// evicted while other threads use them
+							String name = keyNames.get((offset + j) % keyNames.size());
+							VirgilKey key = VirgilKey.load(name);
+							VirgilKey.load(keyNames.get((offset + j + 2) % keyNames.size()));
+
+							byte[] signature = key.sign(data);
+							assertTrue(crypto.verify(data, signature, key.getKeyPair().getPublicKey()));
+						}
+						return null;
+					}
+				}));
+			}
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertTrue(cache.getEvictionCount() > 0);
+		assertTrue(cache.size() <= 2);
+	}
+
+	@Test
+	public void evict_idle() throws InterruptedException {
+		cache = new VirgilKeyCache(2, 1);
+		VirgilConfig.setKeyCache(cache);
+
+		VirgilKey.load(keyName, PASSWORD);
+		Thread.sleep(10);
+
+		VirgilKey.load(keyName, PASSWORD);
+		assertEquals(0, cache.getHitCount());
+		assertEquals(1, cache.getEvictionCount());
+	}
+
+	@Test
+	public void evict_idleAfterMiss() throws InterruptedException {
+		cache = new VirgilKeyCache(2, 300);
+		VirgilConfig.setKeyCache(cache);
+		Crypto crypto = VirgilConfig.getService(Crypto.class);
+
+		VirgilKey.load(keyName, PASSWORD);
+		Thread.sleep(150);
+		String name = UUID.randomUUID().toString();
+		VirgilKey.create(name);
+		VirgilKey.load(name);
+
+		// Miss doesn't make the key recently used
+		assertNull(cache.get(keyName, "wrong password", crypto, storage));
+		Thread.sleep(200);
+
+		assertNull(cache.get(keyName, PASSWORD, crypto, storage));
+		assertEquals(1, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+	}
+
+	@Test
+	public void destroy() {
+		VirgilKey key = VirgilKey.load(keyName, PASSWORD);
+		key.destroy();
+
+		assertEquals(0, cache.size());
+	}
+
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.highlevel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.virgilsecurity.sdk.client.VirgilClient;
+import com.virgilsecurity.sdk.client.exceptions.VirgilCardServiceException;
+import com.virgilsecurity.sdk.client.exceptions.VirgilKeyIsAlreadyExistsException;
+import com.virgilsecurity.sdk.client.model.Card;
+import com.virgilsecurity.sdk.client.requests.CreateCardRequest;
+import com.virgilsecurity.sdk.client.utils.ConvertionUtils;
+import com.virgilsecurity.sdk.crypto.Crypto;
+import com.virgilsecurity.sdk.crypto.KeyStorage;
+import com.virgilsecurity.sdk.crypto.VirgilPrivateKey;
+import com.virgilsecurity.sdk.highlevel.VirgilKeyProvisioner.Device;
+import com.virgilsecurity.sdk.highlevel.VirgilKeyProvisioner.ProgressListener;
+import com.virgilsecurity.sdk.highlevel.VirgilKeyProvisioner.Result;
+import com.virgilsecurity.sdk.highlevel.VirgilKeyProvisioner.Status;
+import com.virgilsecurity.sdk.keystorage.VirgilKeyStorage;
+
+/**
+ * Unit tests for {@linkplain VirgilKeyProvisioner}.
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class VirgilKeyProvisionerTest {
+
+	private static final String FAILED_IDENTITY = "failed";
+
+	private static final String TIMEOUT_IDENTITY = "timeout";
+
+	private static final String BROKEN_IDENTITY = "broken";
+
+	private File keysDir;
+	private KeyStorage storage;
+	private VirgilKeyProvisioner provisioner;
+
+	@Before
+	public void setUp() throws Exception {
+		keysDir = Files.createTempDirectory("keys").toFile();
+		storage = new VirgilKeyStorage(keysDir.getAbsolutePath());
+		VirgilConfig.setKeyStorage(storage);
+
+		VirgilClient client = new VirgilClient("token") {
+
+			@Override
+			public Card createCard(CreateCardRequest request) {
+				if (FAILED_IDENTITY.equals(request.getIdentity())) {
+					// Client wraps the service error
+					throw new VirgilCardServiceException(new VirgilCardServiceException(30107, 400));
+				}
+				if (TIMEOUT_IDENTITY.equals(request.getIdentity())) {
+					throw new VirgilCardServiceException(new SocketTimeoutException());
+				}
+				if (BROKEN_IDENTITY.equals(request.getIdentity())) {
+					throw new AssertionError("broken client");
+				}
+				Card card = new Card();
+				card.setId(UUID.randomUUID().toString());
+				card.setIdentity(request.getIdentity());
+				card.setPublicKey(ConvertionUtils.base64ToArray(request.getPublicKey()));
+				return card;
+			}
+		};
+
+		provisioner = new VirgilKeyProvisioner(client);
+		provisioner.setBatchSize(2);
+		provisioner.setGenerationThreads(2);
+		provisioner.setSubmitConcurrency(2);
+		provisioner.setPassword("password");
+	}
+
+	@After
+	public void tearDown() {
+		VirgilConfig.reset();
+		for (File file : keysDir.listFiles()) {
+			file.delete();
+		}
+		keysDir.delete();
+	}
+
+	@Test
+	public void provision() {
+		final List<Integer> progress = new ArrayList<>();
+		provisioner.setProgressListener(new ProgressListener() {
+
+			@Override
+			public void onProgress(Result result, int completed, int total) {
+				assertEquals(3, total);
+				progress.add(completed);
+			}
+		});
+
+		List<Device> devices = Arrays.asList(new Device("device1", "alice", "member"),
+				new Device("device2", "bob", "member"), new Device("device3", "carol", "member"));
+		List<Result> results = provisioner.provision(devices);
+		Crypto crypto = VirgilConfig.getService(Crypto.class);
+
+		assertEquals(3, results.size());
+		assertEquals(Arrays.asList(1, 2, 3), progress);
+		for (int i = 0; i < 3; i++) {
+			Result result = results.get(i);
+			assertTrue(result.isSuccess());
+			assertEquals(Status.PROVISIONED, result.getStatus());
+			assertEquals(devices.get(i), result.getDevice());
+			assertEquals(devices.get(i).getIdentity(), result.getCard().getIdentity());
+
+			VirgilKey key = VirgilKey.load(devices.get(i).getKeyName(), "password");
+			assertArrayEquals(result.getCard().getPublicKey(), crypto.exportPublicKey(key.getKeyPair().getPublicKey()));
+		}
+	}
+
+	@Test
+	public void provision_failures() {
+		VirgilKey.create("device1");
+
+		List<Result> results = provisioner.provision(Arrays.asList(new Device("device1", "alice", "member"),
+				new Device("device2", FAILED_IDENTITY, "member"), new Device("device3", "carol", "member")));
+
+		assertFalse(results.get(0).isSuccess());
+		assertTrue(results.get(0).getError() instanceof VirgilKeyIsAlreadyExistsException);
+
+		assertFalse(results.get(1).isSuccess());
+		assertEquals(Status.FAILED, results.get(1).getStatus());
+		assertNull(results.get(1).getCard());
+		assertNull(results.get(1).getRequest());
+		assertTrue(results.get(1).getError() instanceof VirgilCardServiceException);
+		assertFalse(storage.exists("device2"));
+
+		assertTrue(results.get(2).isSuccess());
+		assertTrue(storage.exists("device3"));
+	}
+
+	@Test
+	public void provision_unknown() {
+		List<Result> results = provisioner.provision(Arrays.asList(new Device("device1", TIMEOUT_IDENTITY, "member")));
+
+		Result result = results.get(0);
+		assertFalse(result.isSuccess());
+		assertEquals(Status.UNKNOWN, result.getStatus());
+		assertNotNull(result.getRequest());
+		assertEquals(TIMEOUT_IDENTITY, result.getRequest().getIdentity());
+
+		// Card could be created, so the key is kept
+		assertTrue(storage.exists("device1"));
+	}
+
+	@Test
+	public void provision_submissionError() {
+		List<Result> results = provisioner.provision(Arrays.asList(new Device("device1", BROKEN_IDENTITY, "member"),
+				new Device("device2", "bob", "member"), new Device("device3", "carol", "member")));
+
+		Result result = results.get(0);
+		assertEquals(Status.UNKNOWN, result.getStatus());
+		assertTrue(result.getError() instanceof AssertionError);
+		assertEquals(BROKEN_IDENTITY, result.getRequest().getIdentity());
+		assertTrue(storage.exists("device1"));
+
+		// Other devices are provisioned
+		assertTrue(results.get(1).isSuccess());
+		assertTrue(results.get(2).isSuccess());
+	}
+
+	@Test
+	public void provision_generationError() {
+		provisioner.setAuthority("appId", new VirgilPrivateKey() {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public byte[] getValue() {
+				throw new AssertionError("broken key");
+			}
+		});
+
+		List<Result> results = provisioner.provision(
+				Arrays.asList(new Device("device1", "alice", "member"), new Device("device2", "bob", "member")));
+
+		for (int i = 0; i < 2; i++) {
+			Result result = results.get(i);
+			assertEquals("device" + (i + 1), result.getDevice().getKeyName());
+			assertEquals(Status.FAILED, result.getStatus());
+			assertTrue(result.getError() instanceof AssertionError);
+			assertFalse(storage.exists(result.getDevice().getKeyName()));
+		}
+	}
+
+}
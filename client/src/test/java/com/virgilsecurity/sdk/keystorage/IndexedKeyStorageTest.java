@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.keystorage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.nio.channels.FileChannel;
+import java.util.UUID;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.virgilsecurity.sdk.crypto.KeyEntry;
+import com.virgilsecurity.sdk.crypto.exception.KeyEntryAlreadyExistsException;
+import com.virgilsecurity.sdk.crypto.exception.KeyEntryNotFoundException;
+import com.virgilsecurity.sdk.crypto.exception.KeyStorageException;
+
+/**
+ * Unit tests for {@code IndexedKeyStorage}
+ *
+ * @author Andrii Iakovenko
+ * 
+ * @see IndexedKeyStorage
+ *
+ */
+public class IndexedKeyStorageTest {
+
+	private File file;
+	private IndexedKeyStorage storage;
+
+	@Before
+	public void setUp() {
+		file = new File(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString() + ".keys");
+		storage = new IndexedKeyStorage(file.getAbsolutePath());
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		storage.close();
+		file.delete();
+	}
+
+	@Test
+	public void store() {
+		KeyEntry entry = new VirgilKeyEntry("Alice", new byte[] { 1, 2, 3 });
+		entry.getMetadata().put("key", "value");
+		storage.store(entry);
+
+		assertTrue(storage.exists("alice"));
+		KeyEntry loaded = storage.load("ALICE");
+		assertEquals("ALICE", loaded.getName());
+		assertArrayEquals(entry.getValue(), loaded.getValue());
+		assertEquals(entry.getMetadata(), loaded.getMetadata());
+	}
+
+	@Test(expected = KeyEntryAlreadyExistsException.class)
+	public void store_duplicated() {
+		storage.store(new VirgilKeyEntry("alice", new byte[] { 1 }));
+		storage.store(new VirgilKeyEntry("Alice", new byte[] { 2 }));
+	}
+
+	@Test(expected = KeyEntryNotFoundException.class)
+	public void load_notExists() {
+		storage.load("alice");
+	}
+
+	@Test
+	public void delete() {
+		storage.store(new VirgilKeyEntry("alice", new byte[] { 1 }));
+		storage.delete("alice");
+
+		assertFalse(storage.exists("alice"));
+
+		storage.store(new VirgilKeyEntry("alice", new byte[] { 2 }));
+		assertArrayEquals(new byte[] { 2 }, storage.load("alice").getValue());
+	}
+
+	@Test(expected = KeyEntryNotFoundException.class)
+	public void delete_notExists() {
+		storage.delete("alice");
+	}
+
+	@Test
+	public void reopen() throws IOException {
+		storage.store(new VirgilKeyEntry("alice", new byte[] { 1 }));
+		storage.store(new VirgilKeyEntry("bob", new byte[] { 2 }));
+		storage.delete("alice");
+		storage.close();
+
+		storage = new IndexedKeyStorage(file.getAbsolutePath());
+		assertEquals(1, storage.size());
+		assertFalse(storage.exists("alice"));
+		assertArrayEquals(new byte[] { 2 }, storage.load("bob").getValue());
+	}
+
+	@Test
+	public void reopen_tornRecord() throws IOException {
+		storage.store(new VirgilKeyEntry("alice", new byte[] { 1 }));
+		storage.store(new VirgilKeyEntry("bob", new byte[] { 2 }));
+		storage.close();
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(raf.length() - 1);
+		}
+
+		storage = new IndexedKeyStorage(file.getAbsolutePath());
+		assertTrue(storage.exists("alice"));
+		assertFalse(storage.exists("bob"));
+
+		storage.store(new VirgilKeyEntry("bob", new byte[] { 3 }));
+		storage.close();
+
+		storage = new IndexedKeyStorage(file.getAbsolutePath());
+		assertArrayEquals(new byte[] { 3 }, storage.load("bob").getValue());
+	}
+
+	@Test(expected = KeyStorageException.class)
+	public void open_notKeyStorage() throws IOException {
+		storage.close();
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.write("{\"value\":\"\"}".getBytes("UTF-8"));
+		}
+		storage = new IndexedKeyStorage(file.getAbsolutePath());
+	}
+
+	@Test
+	public void compact() throws IOException {
+		storage.close();
+		storage = new IndexedKeyStorage(file.getAbsolutePath(), false);
+
+		byte[] value = new byte[1024];
+		for (int i = 0; i < 2000; i++) {
+			storage.store(new VirgilKeyEntry("key" + i, value));
+		}
+		for (int i = 0; i < 1500; i++) {
+			storage.delete("key" + i);
+		}
+
+		// Compacted automatically when most of the file is deleted keys
+		assertEquals(500, storage.size());
+		assertTrue(storage.getFileSize() < 1500 * value.length);
+
+		storage.compact();
+		assertTrue(storage.getFileSize() < 600 * value.length);
+		assertEquals(storage.getFileSize(), file.length());
+		assertArrayEquals(value, storage.load("key1999").getValue());
+
+		storage.store(new VirgilKeyEntry("key0", value));
+		storage.close();
+
+		storage = new IndexedKeyStorage(file.getAbsolutePath());
+		assertEquals(501, storage.size());
+		assertTrue(storage.exists("key0"));
+		assertFalse(storage.exists("key1"));
+	}
+
+	@Test
+	public void compact_failure() throws IOException {
+		storage.close();
+		File dir = new File(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+		File dirFile = new File(dir, "keys");
+		storage = new IndexedKeyStorage(dirFile.getAbsolutePath(), false);
+
+		byte[] value = new byte[1024];
+		for (int i = 0; i < 2000; i++) {
+			storage.store(new VirgilKeyEntry("key" + i, value));
+		}
+		long fileSize = storage.getFileSize();
+
+		// Compacted file can't be created without directory
+		assertTrue(dirFile.delete());
+		assertTrue(dir.delete());
+		for (int i = 0; i < 1500; i++) {
+			storage.delete("key" + i);
+		}
+		assertEquals(500, storage.size());
+		assertTrue(storage.getFileSize() > fileSize);
+		assertFalse(storage.exists("key0"));
+		assertArrayEquals(value, storage.load("key1999").getValue());
+
+		// Compaction is retried when more keys are deleted
+		assertTrue(dir.mkdir());
+		for (int i = 1500; i < 2000; i++) {
+			storage.delete("key" + i);
+		}
+		storage.close();
+		assertTrue(dirFile.length() < 1500 * value.length);
+
+		storage = new IndexedKeyStorage(dirFile.getAbsolutePath());
+		assertEquals(0, storage.size());
+		storage.close();
+		dirFile.delete();
+		dir.delete();
+	}
+
+	@Test(expected = KeyStorageException.class)
+	public void open_locked() {
+		new IndexedKeyStorage(file.getAbsolutePath());
+	}
+
+	@Test
+	public void writeFailure() throws Exception {
+		storage.store(new VirgilKeyEntry("alice", new byte[] { 1 }));
+
+		// Make writes fail
+		Field channelField = IndexedKeyStorage.class.getDeclaredField("channel");
+		channelField.setAccessible(true);
+		((FileChannel) channelField.get(storage)).close();
+
+		try {
+			storage.delete("alice");
+			fail();
+		} catch (KeyStorageException e) {
+			// Delete record is not written
+		}
+		assertTrue(storage.exists("alice"));
+
+		try {
+			storage.store(new VirgilKeyEntry("bob", new byte[] { 2 }));
+			fail();
+		} catch (KeyStorageException e) {
+			// Store record is not written
+		}
+		assertFalse(storage.exists("bob"));
+	}
+
+	@Test(expected = KeyStorageException.class)
+	public void load_closed() throws IOException {
+		storage.store(new VirgilKeyEntry("alice", new byte[] { 1 }));
+		storage.close();
+
+		storage.load("alice");
+	}
+
+}
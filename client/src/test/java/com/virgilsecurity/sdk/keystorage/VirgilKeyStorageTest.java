@@ -38,7 +38,15 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -155,4 +163,62 @@ public class VirgilKeyStorageTest {
 		storage.delete(alias);
 	}
 
+	@Test
+	public void exists_upperCase() {
+		storage.store(entry);
+
+		assertTrue(storage.exists(alias.toUpperCase()));
+		storage.delete(alias.toUpperCase());
+		assertFalse(storage.exists(alias));
+	}
+
+	@Test
+	public void store_concurrent() throws InterruptedException, ExecutionException {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Boolean>> futures = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				futures.add(executor.submit(new Callable<Boolean>() {
+
+					@Override
+					public Boolean call() {
+						try {
+							storage.store(entry);
+							return true;
+						} catch (KeyEntryAlreadyExistsException e) {
+							return false;
+						}
+					}
+				}));
+			}
+
+			int stored = 0;
+			for (Future<Boolean> future : futures) {
+				if (future.get()) {
+					stored++;
+				}
+			}
+			assertEquals(1, stored);
+			assertArrayEquals(entry.getValue(), storage.load(alias).getValue());
+		} finally {
+			executor.shutdown();
+			storage.delete(alias);
+		}
+	}
+
+	@Test
+	public void storeAll() {
+		KeyEntry entry2 = new VirgilKeyEntry(UUID.randomUUID().toString(), new byte[] { 1, 2, 3 });
+		storage.storeAll(Arrays.asList(entry, entry2));
+
+		List<KeyEntry> entries = storage.loadAll(Arrays.asList(entry2.getName(), alias));
+		assertEquals(2, entries.size());
+		assertEquals(entry2.getName(), entries.get(0).getName());
+		assertArrayEquals(entry2.getValue(), entries.get(0).getValue());
+		assertArrayEquals(entry.getValue(), entries.get(1).getValue());
+
+		storage.delete(alias);
+		storage.delete(entry2.getName());
+	}
+
 }
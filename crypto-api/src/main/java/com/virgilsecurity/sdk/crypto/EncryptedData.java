@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.crypto;
+
+/**
+ * Encrypted data with detached content info. Content info contains recipients
+ * information and encryption parameters, so it could be stored separately from
+ * the encrypted data.
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class EncryptedData {
+
+	private byte[] contentInfo;
+
+	private byte[] cipherData;
+
+	/**
+	 * Create a new instance of {@code EncryptedData}
+	 *
+	 */
+	public EncryptedData() {
+	}
+
+	/**
+	 * Create a new instance of {@code EncryptedData}
+	 *
+	 * @param contentInfo
+	 *            the content info.
+	 * @param cipherData
+	 *            the encrypted data without content info.
+	 */
+	public EncryptedData(byte[] contentInfo, byte[] cipherData) {
+		this.contentInfo = contentInfo;
+		this.cipherData = cipherData;
+	}
+
+	/**
+	 * @return the content info
+	 */
+	public byte[] getContentInfo() {
+		return contentInfo;
+	}
+
+	/**
+	 * @param contentInfo
+	 *            the content info to set
+	 */
+	public void setContentInfo(byte[] contentInfo) {
+		this.contentInfo = contentInfo;
+	}
+
+	/**
+	 * @return the encrypted data without content info
+	 */
+	public byte[] getCipherData() {
+		return cipherData;
+	}
+
+	/**
+	 * @param cipherData
+	 *            the encrypted data without content info to set
+	 */
+	public void setCipherData(byte[] cipherData) {
+		this.cipherData = cipherData;
+	}
+
+}
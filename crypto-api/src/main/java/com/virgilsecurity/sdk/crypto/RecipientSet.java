@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.crypto;
+
+/**
+ * A set of recipients data is encrypted for many times. Session key is
+ * encrypted for all recipients once and reused for a number of messages, so
+ * per-recipient key agreement is not repeated for each message. Each message
+ * still carries the session key encrypted for all recipients, so its size
+ * grows with the number of recipients. Recipient sets are created by crypto
+ * implementations which support them.
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public interface RecipientSet {
+
+	/**
+	 * Encrypt byte array for all recipients of the set.
+	 * 
+	 * @param data
+	 *            the data to be encrypted.
+	 * @return the encrypted data which could be decrypted with
+	 *         {@link Crypto#decrypt(byte[], PrivateKey)}.
+	 */
+	byte[] encrypt(byte[] data);
+
+	/**
+	 * Get the recipients.
+	 * 
+	 * @return the recipients public keys.
+	 */
+	PublicKey[] getRecipients();
+
+	/**
+	 * Discard the current session key. New session key is generated for the
+	 * next message.
+	 */
+	void rotate();
+
+}
@@ -59,4 +59,16 @@ public class DecryptionException extends CryptoException {
 		super(cause);
 	}
 
+	/**
+	 * Create a new instance of {@code DecryptionException} with the specified
+	 * detail message.
+	 *
+	 * @param message
+	 *            the detail message. The detail message is saved for later
+	 *            retrieval by the {@link #getMessage()} method.
+	 */
+	public DecryptionException(String message) {
+		super(message);
+	}
+
 }
@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2016 Virgil Security Inc.
+ *
+ * Lead Maintainer: Virgil Security Inc. <support@virgilsecurity.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     (1) Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *
+ *     (2) Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in
+ *     the documentation and/or other materials provided with the
+ *     distribution.
+ *
+ *     (3) Neither the name of the copyright holder nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ''AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING
+ * IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.virgilsecurity.crypto;
+
+/**
+ * Data sink which writes data to byte channel. Each chunk is written
+ * completely. Sink is not good anymore after a write failure or when it's
+ * closed.
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class VirgilChannelDataSink extends VirgilDataSink implements java.io.Closeable {
+	private java.nio.channels.WritableByteChannel channel;
+	private boolean good = true;
+
+	public VirgilChannelDataSink(java.nio.channels.WritableByteChannel channel) {
+		this.channel = channel;
+	}
+
+	@Override
+	public boolean isGood() throws java.io.IOException {
+		return this.good;
+	}
+
+	@Override
+	public void write(byte[] data) throws java.io.IOException {
+		if (!this.good) {
+			throw new java.io.IOException("Data sink is not good");
+		}
+		java.nio.ByteBuffer buffer = java.nio.ByteBuffer.wrap(data);
+		try {
+			while (buffer.hasRemaining()) {
+				this.channel.write(buffer);
+			}
+		} catch (java.io.IOException e) {
+			this.good = false;
+			throw e;
+		}
+	}
+
+	@Override
+	public void close() throws java.io.IOException {
+		this.good = false;
+		try {
+			this.channel.close();
+		} finally {
+			this.delete();
+		}
+	}
+}
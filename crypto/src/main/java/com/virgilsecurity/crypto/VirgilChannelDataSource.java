@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2016 Virgil Security Inc.
+ *
+ * Lead Maintainer: Virgil Security Inc. <support@virgilsecurity.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     (1) Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *
+ *     (2) Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in
+ *     the documentation and/or other materials provided with the
+ *     distribution.
+ *
+ *     (3) Neither the name of the copyright holder nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ''AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING
+ * IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.virgilsecurity.crypto;
+
+/**
+ * Data source which reads data from byte channel until end of stream is
+ * reached. Channel is read into reusable buffer, so {@link #read()} returns the
+ * same array for each full chunk. The returned array is valid until the next
+ * call to {@link #hasData()} or {@link #read()}.
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class VirgilChannelDataSource extends VirgilDataSource implements java.io.Closeable {
+	/** The default chunk size. */
+	public static final int CHUNK_SIZE_DEFAULT = 1024 * 1024;
+
+	private java.nio.channels.ReadableByteChannel channel;
+	private java.nio.ByteBuffer buffer;
+	private boolean eof;
+
+	public VirgilChannelDataSource(java.nio.channels.ReadableByteChannel channel) {
+		this(channel, CHUNK_SIZE_DEFAULT);
+	}
+
+	/**
+	 * Create a new instance of {@code VirgilChannelDataSource}
+	 *
+	 * @param channel
+	 *            the channel to read from.
+	 * @param chunkSize
+	 *            the maximum size of data returned by {@link #read()}.
+	 */
+	public VirgilChannelDataSource(java.nio.channels.ReadableByteChannel channel, int chunkSize) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("chunkSize");
+		}
+		this.channel = channel;
+		this.buffer = java.nio.ByteBuffer.allocate(chunkSize);
+	}
+
+	@Override
+	public boolean hasData() throws java.io.IOException {
+		fill();
+		return this.buffer.position() > 0;
+	}
+
+	@Override
+	public byte[] read() throws java.io.IOException {
+		fill();
+		byte[] result;
+		if (!this.buffer.hasRemaining()) {
+			result = this.buffer.array();
+		} else {
+			result = java.util.Arrays.copyOf(this.buffer.array(), this.buffer.position());
+		}
+		this.buffer.clear();
+		return result;
+	}
+
+	@Override
+	public void close() throws java.io.IOException {
+		this.channel.close();
+		this.delete();
+	}
+
+	private void fill() throws java.io.IOException {
+		while (!this.eof && this.buffer.hasRemaining()) {
+			if (this.channel.read(this.buffer) < 0) {
+				this.eof = true;
+			}
+		}
+	}
+}
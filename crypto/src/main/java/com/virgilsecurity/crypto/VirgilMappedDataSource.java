@@ -0,0 +1,122 @@
+/**
+ * Copyright (C) 2016 Virgil Security Inc.
+ *
+ * Lead Maintainer: Virgil Security Inc. <support@virgilsecurity.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     (1) Redistributions of source code must retain the above copyright
+ *     notice, this list of conditions and the following disclaimer.
+ *
+ *     (2) Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in
+ *     the documentation and/or other materials provided with the
+ *     distribution.
+ *
+ *     (3) Neither the name of the copyright holder nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ''AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING
+ * IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.virgilsecurity.crypto;
+
+/**
+ * Data source which reads file through memory mapping. File is mapped by
+ * regions, so files larger than 2GB are supported. Data is copied from mapped
+ * region to reusable buffer, so {@link #read()} returns the same array for each
+ * full chunk. The returned array is valid until the next call to
+ * {@link #read()}.
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class VirgilMappedDataSource extends VirgilDataSource implements java.io.Closeable {
+	/** The default chunk size. */
+	public static final int CHUNK_SIZE_DEFAULT = 1024 * 1024;
+
+	private static final long REGION_SIZE_DEFAULT = 256L * 1024 * 1024;
+
+	private java.nio.channels.FileChannel channel;
+	private byte[] chunk;
+	private long regionSize;
+	private long size;
+	private long mappedPosition;
+	private java.nio.MappedByteBuffer region;
+
+	public VirgilMappedDataSource(java.nio.channels.FileChannel channel) throws java.io.IOException {
+		this(channel, CHUNK_SIZE_DEFAULT);
+	}
+
+	/**
+	 * Create a new instance of {@code VirgilMappedDataSource}
+	 *
+	 * @param channel
+	 *            the file channel to read from. Data is read from the current
+	 *            channel position till the end of file.
+	 * @param chunkSize
+	 *            the maximum size of data returned by {@link #read()}.
+	 * @throws java.io.IOException
+	 *             if file size couldn't be determined.
+	 */
+	public VirgilMappedDataSource(java.nio.channels.FileChannel channel, int chunkSize) throws java.io.IOException {
+		this(channel, chunkSize, REGION_SIZE_DEFAULT);
+	}
+
+	VirgilMappedDataSource(java.nio.channels.FileChannel channel, int chunkSize, long regionSize)
+			throws java.io.IOException {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("chunkSize");
+		}
+		this.channel = channel;
+		this.chunk = new byte[chunkSize];
+		// Region size is a multiple of chunk size, so chunks don't cross regions
+		this.regionSize = Math.max(1, regionSize / chunkSize) * chunkSize;
+		this.size = channel.size();
+		this.mappedPosition = channel.position();
+	}
+
+	@Override
+	public boolean hasData() throws java.io.IOException {
+		return (this.region != null && this.region.hasRemaining()) || this.mappedPosition < this.size;
+	}
+
+	@Override
+	public byte[] read() throws java.io.IOException {
+		if (this.region == null || !this.region.hasRemaining()) {
+			if (this.mappedPosition >= this.size) {
+				return new byte[0];
+			}
+			long length = Math.min(this.regionSize, this.size - this.mappedPosition);
+			this.region = this.channel.map(java.nio.channels.FileChannel.MapMode.READ_ONLY, this.mappedPosition,
+					length);
+			this.mappedPosition += length;
+		}
+		int length = Math.min(this.chunk.length, this.region.remaining());
+		byte[] result = (length == this.chunk.length) ? this.chunk : new byte[length];
+		this.region.get(result, 0, length);
+		return result;
+	}
+
+	@Override
+	public void close() throws java.io.IOException {
+		this.region = null;
+		this.channel.close();
+		this.delete();
+	}
+}
@@ -37,13 +37,16 @@
 package com.virgilsecurity.crypto;
 
 /**
- * TODO: add type description
+ * Data sink which writes data to output stream. Each chunk is written
+ * completely. Sink is not good anymore after a write failure or when it's
+ * closed.
  *
  * @author Andrii Iakovenko
  *
  */
 public class VirgilStreamDataSink extends VirgilDataSink implements java.io.Closeable {
 	private java.io.OutputStream stream;
+	private boolean good = true;
 
 	public VirgilStreamDataSink(java.io.OutputStream stream) {
 		this.stream = stream;
@@ -51,18 +54,29 @@ public class VirgilStreamDataSink extends VirgilDataSink implements java.io.Clos
 
 	@Override
 	public boolean isGood() throws java.io.IOException {
-		// If stream is not good, method 'write' will throw exception.
-		return true;
+		return this.good;
 	}
 
 	@Override
 	public void write(byte[] data) throws java.io.IOException {
-		this.stream.write(data, 0, data.length);
+		if (!this.good) {
+			throw new java.io.IOException("Data sink is not good");
+		}
+		try {
+			this.stream.write(data, 0, data.length);
+		} catch (java.io.IOException e) {
+			this.good = false;
+			throw e;
+		}
 	}
 
 	@Override
 	public void close() throws java.io.IOException {
-		this.stream.close();
-		this.delete();
+		this.good = false;
+		try {
+			this.stream.close();
+		} finally {
+			this.delete();
+		}
 	}
 }
@@ -36,31 +36,63 @@
 
 package com.virgilsecurity.crypto;
 
+/**
+ * Data source which reads data from input stream until end of stream is
+ * reached. Stream is read into reusable buffer, so {@link #read()} returns the
+ * same array for each full chunk. The returned array is valid until the next
+ * call to {@link #hasData()} or {@link #read()}.
+ *
+ * @author Andrii Iakovenko
+ *
+ */
 public class VirgilStreamDataSource extends VirgilDataSource implements java.io.Closeable {
+	private static final int CHUNK_SIZE_DEFAULT = 1024 * 1024;
+	private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+
 	private java.io.InputStream stream;
 	private int chunkSize;
-	private static int CHUNK_SIZE_DEFAULT = 1024 * 1024;
+	private byte[] buffer;
+	private int length;
+	private boolean eof;
 
 	public VirgilStreamDataSource(java.io.InputStream stream) {
-		this.stream = stream;
-		this.chunkSize = CHUNK_SIZE_DEFAULT;
+		this(stream, CHUNK_SIZE_DEFAULT);
 	}
 
+	/**
+	 * Create a new instance of {@code VirgilStreamDataSource}
+	 *
+	 * @param stream
+	 *            the input stream.
+	 * @param chunkSize
+	 *            the maximum size of data returned by {@link #read()}.
+	 */
 	public VirgilStreamDataSource(java.io.InputStream stream, int chunkSize) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("chunkSize");
+		}
 		this.stream = stream;
 		this.chunkSize = chunkSize;
+		// Buffer grows up to chunk size, so small streams don't allocate whole chunk
+		this.buffer = new byte[Math.min(chunkSize, INITIAL_BUFFER_SIZE)];
 	}
 
 	@Override
 	public boolean hasData() throws java.io.IOException {
-		return this.stream.available() > 0;
+		fill();
+		return this.length > 0;
 	}
 
 	@Override
 	public byte[] read() throws java.io.IOException {
-		final int bytesToReadNum = Math.min(this.stream.available(), this.chunkSize);
-		byte[] result = new byte[bytesToReadNum];
-		this.stream.read(result, 0, bytesToReadNum);
+		fill();
+		byte[] result;
+		if (this.length == this.buffer.length) {
+			result = this.buffer;
+		} else {
+			result = java.util.Arrays.copyOf(this.buffer, this.length);
+		}
+		this.length = 0;
 		return result;
 	}
 
@@ -69,4 +101,26 @@ public class VirgilStreamDataSource extends VirgilDataSource implements java.io.
 		this.stream.close();
 		this.delete();
 	}
+
+	/**
+	 * Reads stream until buffer contains whole chunk or end of stream is
+	 * reached. Short reads are continued, so data is not cut when
+	 * {@code available()} is 0 before end of stream.
+	 */
+	private void fill() throws java.io.IOException {
+		while (!this.eof) {
+			if (this.length == this.buffer.length) {
+				if (this.buffer.length == this.chunkSize) {
+					return;
+				}
+				this.buffer = java.util.Arrays.copyOf(this.buffer, Math.min(this.buffer.length * 2, this.chunkSize));
+			}
+			int count = this.stream.read(this.buffer, this.length, this.buffer.length - this.length);
+			if (count < 0) {
+				this.eof = true;
+			} else {
+				this.length += count;
+			}
+		}
+	}
 }
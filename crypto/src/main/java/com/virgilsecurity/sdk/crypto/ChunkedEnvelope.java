@@ -0,0 +1,681 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.crypto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.virgilsecurity.sdk.crypto.exception.CryptoException;
+import com.virgilsecurity.sdk.crypto.exception.DecryptionException;
+
+/**
+ * Chunked envelope which could be encrypted and decrypted in parallel.
+ * 
+ * <p>
+ * A random ephemeral key pair is generated for each envelope. The ephemeral
+ * private key is encrypted for recipients and stored in envelope header. Data
+ * is split to chunks, and each chunk is encrypted for ephemeral public key
+ * independently, so chunks are processed in parallel. Chunk index and final
+ * chunk flag are encrypted with chunk data, so reordered, missing or appended
+ * chunks are detected on decryption.
+ * </p>
+ * <p>
+ * Seekable envelope (version 2) has data size and chunks index after the
+ * header, so any chunk could be found and decrypted without reading the
+ * preceding ones.
+ * </p>
+ * 
+ * <pre>
+ * envelope = magic(4) version(1) header_length(4) header chunk*
+ * seekable = magic(4) version(1) header_length(4) header
+ *            chunk_size(4) data_size(8) chunk_length(4)* encrypt(index(8) final(1) data)*
+ * header   = ephemeral private key encrypted for recipients
+ * chunk    = length(4) encrypt(index(8) final(1) data)
+ * </pre>
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+final class ChunkedEnvelope {
+
+	/** The marker of chunked envelope. */
+	static final byte[] MAGIC = { 'V', 'C', 'H', 'K' };
+
+	/** The format version. */
+	static final int VERSION = 1;
+
+	/** The format version of seekable envelope. */
+	static final int VERSION_SEEKABLE = 2;
+
+	/** The maximum chunk size. */
+	static final int MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+
+	static final int CHUNK_HEADER_SIZE = 9;
+
+	// Content info and tag of encrypted chunk are much smaller
+	static final int MAX_ENVELOPE_OVERHEAD = 64 * 1024;
+
+	// Header grows with the number of recipients
+	static final int MAX_HEADER_SIZE = 16 * 1024 * 1024;
+
+	// Chunks index should fit a byte array
+	static final int MAX_CHUNKS_COUNT = Integer.MAX_VALUE / 4;
+
+	private final VirgilCrypto crypto;
+
+	private final ExecutorService executor;
+
+	private final int maxPendingChunks;
+
+	/**
+	 * Create a new instance of {@code ChunkedEnvelope}
+	 *
+	 * @param crypto
+	 *            the crypto used for chunks encryption.
+	 * @param executor
+	 *            the executor chunks are processed on.
+	 * @param parallelism
+	 *            the number of chunks processed at the same time.
+	 */
+	ChunkedEnvelope(VirgilCrypto crypto, ExecutorService executor, int parallelism) {
+		this.crypto = crypto;
+		this.executor = executor;
+		// Keep next chunks ready while the first one is written
+		this.maxPendingChunks = Math.max(2, parallelism * 2);
+	}
+
+	/**
+	 * Encrypts input stream data to output stream.
+	 * 
+	 * @param inputStream
+	 *            the data to encrypt.
+	 * @param outputStream
+	 *            the stream encrypted envelope written to.
+	 * @param recipients
+	 *            the recipients.
+	 * @param chunkSize
+	 *            the size of data chunk.
+	 * @throws IOException
+	 *             if stream couldn't be read or written.
+	 */
+	void encrypt(InputStream inputStream, OutputStream outputStream, PublicKey[] recipients, int chunkSize)
+			throws IOException {
+		if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE) {
+			throw new IllegalArgumentException("chunkSize");
+		}
+		KeyPair ephemeralKeys = crypto.generateKeys();
+
+		DataOutputStream out = new DataOutputStream(outputStream);
+		writeHeader(out, VERSION, ephemeralKeys.getPrivateKey(), recipients);
+		destroy(ephemeralKeys.getPrivateKey());
+
+		Deque<Future<byte[]>> pending = new ArrayDeque<>();
+		try {
+			byte[] chunk = readChunk(inputStream, chunkSize);
+			for (long index = 0;; index++) {
+				byte[] nextChunk = null;
+				if (chunk.length == CHUNK_HEADER_SIZE + chunkSize) {
+					nextChunk = readChunk(inputStream, chunkSize);
+					if (nextChunk.length == CHUNK_HEADER_SIZE) {
+						// Stream ended exactly at chunk boundary
+						nextChunk = null;
+					}
+				}
+				writeChunkHeader(chunk, index, nextChunk == null);
+
+				pending.add(submitEncrypt(chunk, ephemeralKeys.getPublicKey()));
+				if (pending.size() >= maxPendingChunks) {
+					writeChunk(out, getResult(pending.poll()));
+				}
+
+				if (nextChunk == null) {
+					break;
+				}
+				chunk = nextChunk;
+			}
+			while (!pending.isEmpty()) {
+				writeChunk(out, getResult(pending.poll()));
+			}
+			out.flush();
+		} finally {
+			cancelAll(pending);
+		}
+	}
+
+	/**
+	 * Decrypts envelope from input stream to output stream. Decrypted data is
+	 * written as soon as chunk is verified.
+	 * 
+	 * @param inputStream
+	 *            the encrypted envelope.
+	 * @param outputStream
+	 *            the stream decrypted data written to.
+	 * @param privateKey
+	 *            the recipient's private key.
+	 * @throws IOException
+	 *             if stream couldn't be read or written.
+	 * @throws DecryptionException
+	 *             if envelope is malformed or modified.
+	 */
+	void decrypt(InputStream inputStream, OutputStream outputStream, PrivateKey privateKey) throws IOException {
+		DataInputStream in = new DataInputStream(inputStream);
+		int version = readVersion(in);
+		PrivateKey ephemeralKey = readHeader(in, privateKey);
+
+		ChunkVerifier verifier = new ChunkVerifier(outputStream);
+		Deque<Future<byte[]>> pending = new ArrayDeque<>();
+		try {
+			int[] chunkLengths = null;
+			if (version == VERSION_SEEKABLE) {
+				int chunkSize = in.readInt();
+				long dataSize = in.readLong();
+				chunkLengths = readIndex(in, chunksCount(chunkSize, dataSize));
+			}
+
+			byte[] encryptedChunk;
+			for (int index = 0;; index++) {
+				if (chunkLengths == null) {
+					encryptedChunk = readBlock(in, MAX_CHUNK_SIZE + MAX_ENVELOPE_OVERHEAD);
+				} else if (index < chunkLengths.length) {
+					encryptedChunk = new byte[chunkLengths[index]];
+					try {
+						in.readFully(encryptedChunk);
+					} catch (EOFException e) {
+						throw new DecryptionException("Chunked envelope is truncated");
+					}
+				} else if (in.read() >= 0) {
+					throw new DecryptionException("Data found after final chunk");
+				} else {
+					encryptedChunk = null;
+				}
+				if (encryptedChunk == null) {
+					break;
+				}
+				pending.add(submitDecrypt(encryptedChunk, ephemeralKey));
+				if (pending.size() >= maxPendingChunks) {
+					verifier.write(getResult(pending.poll()));
+				}
+			}
+			while (!pending.isEmpty()) {
+				verifier.write(getResult(pending.poll()));
+			}
+		} finally {
+			cancelAll(pending);
+			destroy(ephemeralKey);
+		}
+		verifier.finish();
+		outputStream.flush();
+	}
+
+	/**
+	 * Encrypts channel data to seekable envelope. Chunks index is written
+	 * after all chunks are encrypted, so output channel should support
+	 * positioning.
+	 * 
+	 * @param input
+	 *            the data to encrypt. All data from the current position to
+	 *            the end of channel is encrypted.
+	 * @param output
+	 *            the channel encrypted envelope written to from its current
+	 *            position.
+	 * @param recipients
+	 *            the recipients.
+	 * @param chunkSize
+	 *            the size of data chunk.
+	 * @throws IOException
+	 *             if channel couldn't be read or written.
+	 */
+	void encryptSeekable(SeekableByteChannel input, SeekableByteChannel output, PublicKey[] recipients,
+			int chunkSize) throws IOException {
+		if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE) {
+			throw new IllegalArgumentException("chunkSize");
+		}
+		long dataSize = input.size() - input.position();
+		int chunksCount = chunksCount(chunkSize, dataSize);
+		if (chunksCount > MAX_CHUNKS_COUNT) {
+			throw new IllegalArgumentException("chunkSize");
+		}
+		KeyPair ephemeralKeys = crypto.generateKeys();
+
+		ByteArrayOutputStream header = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(header);
+		writeHeader(out, VERSION_SEEKABLE, ephemeralKeys.getPrivateKey(), recipients);
+		destroy(ephemeralKeys.getPrivateKey());
+		out.writeInt(chunkSize);
+		out.writeLong(dataSize);
+		writeFully(output, ByteBuffer.wrap(header.toByteArray()));
+
+		// Reserve space for chunks index
+		long indexPosition = output.position();
+		ByteBuffer index = ByteBuffer.allocate(chunksCount * 4);
+		output.position(indexPosition + index.capacity());
+
+		Deque<Future<byte[]>> pending = new ArrayDeque<>();
+		try {
+			for (int i = 0; i < chunksCount; i++) {
+				int length = (int) Math.min(chunkSize, dataSize - (long) i * chunkSize);
+				byte[] chunk = new byte[CHUNK_HEADER_SIZE + length];
+				readFully(input, ByteBuffer.wrap(chunk, CHUNK_HEADER_SIZE, length));
+				writeChunkHeader(chunk, i, i == chunksCount - 1);
+
+				pending.add(submitEncrypt(chunk, ephemeralKeys.getPublicKey()));
+				if (pending.size() >= maxPendingChunks) {
+					writeIndexedChunk(output, index, getResult(pending.poll()));
+				}
+			}
+			while (!pending.isEmpty()) {
+				writeIndexedChunk(output, index, getResult(pending.poll()));
+			}
+		} finally {
+			cancelAll(pending);
+		}
+
+		long endPosition = output.position();
+		index.flip();
+		output.position(indexPosition);
+		writeFully(output, index);
+		output.position(endPosition);
+	}
+
+	/**
+	 * Opens seekable envelope for reading decrypted data.
+	 * 
+	 * @param channel
+	 *            the channel with seekable envelope at its current position.
+	 * @param privateKey
+	 *            the recipient's private key.
+	 * @return the channel decrypted data could be read from.
+	 * @throws IOException
+	 *             if channel couldn't be read.
+	 * @throws DecryptionException
+	 *             if envelope is malformed or key is wrong.
+	 */
+	SeekableByteChannel openSeekable(SeekableByteChannel channel, PrivateKey privateKey) throws IOException {
+		DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+		int version = readVersion(in);
+		if (version != VERSION_SEEKABLE) {
+			throw new DecryptionException("Chunked envelope is not seekable");
+		}
+		PrivateKey ephemeralKey = readHeader(in, privateKey);
+		boolean success = false;
+		try {
+			int chunkSize = in.readInt();
+			long dataSize = in.readLong();
+			int[] chunkLengths = readIndex(in, chunksCount(chunkSize, dataSize));
+
+			long[] chunkOffsets = new long[chunkLengths.length + 1];
+			chunkOffsets[0] = channel.position();
+			for (int i = 0; i < chunkLengths.length; i++) {
+				chunkOffsets[i + 1] = chunkOffsets[i] + chunkLengths[i];
+			}
+			if (chunkOffsets[chunkLengths.length] > channel.size()) {
+				throw new DecryptionException("Chunked envelope is truncated");
+			}
+			SeekableByteChannel decryptedChannel = new SeekableEnvelopeChannel(crypto, channel, ephemeralKey,
+					chunkSize, dataSize, chunkOffsets);
+			success = true;
+			return decryptedChannel;
+		} finally {
+			if (!success) {
+				destroy(ephemeralKey);
+			}
+		}
+	}
+
+	/**
+	 * Encrypts ephemeral private key for recipients.
+	 * 
+	 * @return the envelope header.
+	 */
+	static byte[] encryptHeader(VirgilCrypto crypto, PrivateKey ephemeralKey, PublicKey[] recipients) {
+		byte[] keyData = crypto.exportPrivateKey(ephemeralKey);
+		try {
+			return crypto.encrypt(keyData, recipients);
+		} finally {
+			Arrays.fill(keyData, (byte) 0);
+		}
+	}
+
+	/**
+	 * Destroys ephemeral private key which is not needed anymore.
+	 */
+	static void destroy(PrivateKey privateKey) {
+		if (privateKey instanceof VirgilPrivateKey) {
+			((VirgilPrivateKey) privateKey).destroy();
+		}
+	}
+
+	/**
+	 * Encrypts data as envelope with a single chunk. Header is not encrypted
+	 * again, so it could be shared by many envelopes.
+	 * 
+	 * @param crypto
+	 *            the crypto used for chunk encryption.
+	 * @param header
+	 *            the encrypted ephemeral private key.
+	 * @param ephemeralKey
+	 *            the ephemeral public key.
+	 * @param data
+	 *            the data to encrypt.
+	 * @return the envelope.
+	 */
+	static byte[] encryptMessage(VirgilCrypto crypto, byte[] header, PublicKey ephemeralKey, byte[] data) {
+		byte[] chunk = new byte[CHUNK_HEADER_SIZE + data.length];
+		System.arraycopy(data, 0, chunk, CHUNK_HEADER_SIZE, data.length);
+		writeChunkHeader(chunk, 0, true);
+		byte[] encryptedChunk = crypto.encrypt(chunk, ephemeralKey);
+
+		ByteBuffer envelope = ByteBuffer
+				.allocate(MAGIC.length + 1 + 4 + header.length + 4 + encryptedChunk.length);
+		envelope.put(MAGIC).put((byte) VERSION);
+		envelope.putInt(header.length).put(header);
+		envelope.putInt(encryptedChunk.length).put(encryptedChunk);
+		return envelope.array();
+	}
+
+	/**
+	 * Checks if data starts with chunked envelope marker. Data encrypted by
+	 * {@code VirgilCipher} never starts with it.
+	 * 
+	 * @param data
+	 *            the encrypted data.
+	 * @return {@code true} if data is chunked envelope.
+	 */
+	static boolean isEnvelope(byte[] data) {
+		if (data == null || data.length < MAGIC.length) {
+			return false;
+		}
+		for (int i = 0; i < MAGIC.length; i++) {
+			if (data[i] != MAGIC[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Decrypts chunk and verifies its header.
+	 * 
+	 * @return the chunk with header. Chunk data starts at
+	 *         {@link #CHUNK_HEADER_SIZE}.
+	 */
+	static byte[] decryptChunk(VirgilCrypto crypto, byte[] encryptedChunk, PrivateKey ephemeralKey, long index,
+			boolean last, int length) {
+		byte[] chunk = decrypt(crypto, encryptedChunk, ephemeralKey);
+		if (chunk.length != CHUNK_HEADER_SIZE + length || readChunkIndex(chunk) != index
+				|| (chunk[8] != 0) != last) {
+			throw new DecryptionException("Chunk " + index + " is invalid");
+		}
+		return chunk;
+	}
+
+	private Future<byte[]> submitEncrypt(final byte[] chunk, final PublicKey ephemeralKey) {
+		return executor.submit(new Callable<byte[]>() {
+
+			@Override
+			public byte[] call() {
+				return crypto.encrypt(chunk, ephemeralKey);
+			}
+		});
+	}
+
+	private Future<byte[]> submitDecrypt(final byte[] encryptedChunk, final PrivateKey ephemeralKey) {
+		return executor.submit(new Callable<byte[]>() {
+
+			@Override
+			public byte[] call() {
+				return decrypt(crypto, encryptedChunk, ephemeralKey);
+			}
+		});
+	}
+
+	private static byte[] decrypt(VirgilCrypto crypto, byte[] data, PrivateKey privateKey) {
+		try {
+			return crypto.decryptWithKey(data, privateKey);
+		} catch (Exception e) {
+			// Native cipher fails with undeclared exception
+			throw new DecryptionException(e);
+		}
+	}
+
+	private void writeHeader(DataOutputStream out, int version, PrivateKey ephemeralKey, PublicKey[] recipients)
+			throws IOException {
+		byte[] header = encryptHeader(crypto, ephemeralKey, recipients);
+		out.write(MAGIC);
+		out.writeByte(version);
+		out.writeInt(header.length);
+		out.write(header);
+	}
+
+	private static int readVersion(DataInputStream in) throws IOException {
+		byte[] magic = new byte[MAGIC.length];
+		in.readFully(magic);
+		if (!Arrays.equals(MAGIC, magic)) {
+			throw new DecryptionException("Data is not a chunked envelope");
+		}
+		int version = in.readUnsignedByte();
+		if (version != VERSION && version != VERSION_SEEKABLE) {
+			throw new DecryptionException("Unsupported chunked envelope version " + version);
+		}
+		return version;
+	}
+
+	private PrivateKey readHeader(DataInputStream in, PrivateKey privateKey) throws IOException {
+		byte[] header = readBlock(in, MAX_HEADER_SIZE);
+		if (header == null) {
+			throw new DecryptionException("Chunked envelope header is missing");
+		}
+		byte[] keyData = decrypt(crypto, header, privateKey);
+		try {
+			return crypto.importPrivateKey(keyData);
+		} finally {
+			Arrays.fill(keyData, (byte) 0);
+		}
+	}
+
+	private static int chunksCount(int chunkSize, long dataSize) {
+		if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE || dataSize < 0) {
+			throw new DecryptionException("Invalid chunked envelope header");
+		}
+		// Empty data is encrypted as a single empty chunk
+		return (int) Math.min(Math.max(1, (dataSize + chunkSize - 1) / chunkSize), Integer.MAX_VALUE);
+	}
+
+	private static int[] readIndex(DataInputStream in, int chunksCount) throws IOException {
+		if (chunksCount > MAX_CHUNKS_COUNT) {
+			throw new DecryptionException("Invalid chunked envelope header");
+		}
+		byte[] index = new byte[chunksCount * 4];
+		in.readFully(index);
+		int[] chunkLengths = new int[chunksCount];
+		ByteBuffer.wrap(index).asIntBuffer().get(chunkLengths);
+		for (int i = 0; i < chunksCount; i++) {
+			if (chunkLengths[i] <= 0 || chunkLengths[i] > MAX_CHUNK_SIZE + MAX_ENVELOPE_OVERHEAD) {
+				throw new DecryptionException("Invalid chunk length " + chunkLengths[i]);
+			}
+		}
+		return chunkLengths;
+	}
+
+	private static void writeIndexedChunk(SeekableByteChannel output, ByteBuffer index, byte[] encryptedChunk)
+			throws IOException {
+		index.putInt(encryptedChunk.length);
+		writeFully(output, ByteBuffer.wrap(encryptedChunk));
+	}
+
+	static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new EOFException();
+			}
+		}
+	}
+
+	private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Reads chunk of data and reserves space for chunk header.
+	 */
+	private static byte[] readChunk(InputStream inputStream, int chunkSize) throws IOException {
+		byte[] chunk = new byte[CHUNK_HEADER_SIZE + chunkSize];
+		int length = CHUNK_HEADER_SIZE;
+		int count;
+		while (length < chunk.length && (count = inputStream.read(chunk, length, chunk.length - length)) >= 0) {
+			length += count;
+		}
+		return length == chunk.length ? chunk : Arrays.copyOf(chunk, length);
+	}
+
+	private static void writeChunkHeader(byte[] chunk, long index, boolean last) {
+		for (int i = 7; i >= 0; i--) {
+			chunk[i] = (byte) index;
+			index >>>= 8;
+		}
+		chunk[8] = (byte) (last ? 1 : 0);
+	}
+
+	private static long readChunkIndex(byte[] chunk) {
+		long index = 0;
+		for (int i = 0; i < 8; i++) {
+			index = (index << 8) | (chunk[i] & 0xFF);
+		}
+		return index;
+	}
+
+	private static void writeChunk(DataOutputStream out, byte[] encryptedChunk) throws IOException {
+		out.writeInt(encryptedChunk.length);
+		out.write(encryptedChunk);
+	}
+
+	/**
+	 * Reads length prefixed block.
+	 * 
+	 * @return the block or {@code null} if stream is ended before the block.
+	 * @throws DecryptionException
+	 *             if stream is ended inside the block.
+	 */
+	private static byte[] readBlock(DataInputStream in, int maxLength) throws IOException {
+		int firstByte = in.read();
+		if (firstByte < 0) {
+			return null;
+		}
+		try {
+			int length = (firstByte << 24) | (in.readUnsignedByte() << 16) | (in.readUnsignedByte() << 8)
+					| in.readUnsignedByte();
+			if (length <= 0 || length > maxLength) {
+				throw new DecryptionException("Invalid chunk length " + length);
+			}
+			byte[] block = new byte[length];
+			in.readFully(block);
+			return block;
+		} catch (EOFException e) {
+			throw new DecryptionException("Chunked envelope is truncated");
+		}
+	}
+
+	private static byte[] getResult(Future<byte[]> future) throws IOException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof CryptoException) {
+				throw (CryptoException) cause;
+			}
+			throw new CryptoException(cause);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CryptoException(e);
+		}
+	}
+
+	private static void cancelAll(Deque<Future<byte[]>> pending) {
+		for (Future<byte[]> future : pending) {
+			future.cancel(true);
+		}
+	}
+
+	/**
+	 * Verifies order of decrypted chunks and writes their data.
+	 */
+	private static class ChunkVerifier {
+		private final OutputStream outputStream;
+		private long index;
+		private boolean finished;
+
+		ChunkVerifier(OutputStream outputStream) {
+			this.outputStream = outputStream;
+		}
+
+		void write(byte[] chunk) throws IOException {
+			if (finished) {
+				throw new DecryptionException("Data found after final chunk");
+			}
+			if (chunk.length < CHUNK_HEADER_SIZE) {
+				throw new DecryptionException("Invalid chunk");
+			}
+			long chunkIndex = readChunkIndex(chunk);
+			if (chunkIndex != index) {
+				throw new DecryptionException("Chunk " + index + " expected, but chunk " + chunkIndex + " found");
+			}
+			index++;
+			finished = chunk[8] != 0;
+
+			outputStream.write(chunk, CHUNK_HEADER_SIZE, chunk.length - CHUNK_HEADER_SIZE);
+		}
+
+		void finish() throws DecryptionException {
+			if (!finished) {
+				throw new DecryptionException("Chunked envelope is truncated");
+			}
+		}
+	}
+
+}
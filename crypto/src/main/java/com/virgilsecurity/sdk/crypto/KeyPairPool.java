@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.crypto;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.security.auth.DestroyFailedException;
+import javax.security.auth.Destroyable;
+
+/**
+ * A pool of key pairs generated in advance. When a key pair is taken, the pool
+ * is refilled in background by a low priority thread, so key pairs are
+ * generated without delaying the caller. If the pool is empty, the key pair is
+ * generated by the calling thread.
+ * 
+ * <p>
+ * Pooled private keys are kept in memory until they are taken. They are
+ * destroyed when pool is closed.
+ * </p>
+ *
+ * @author Andrii Iakovenko
+ *
+ * @see VirgilCrypto#enableKeyPairPool(KeysType, int)
+ */
+public class KeyPairPool implements Closeable {
+
+	private static final long THREAD_KEEP_ALIVE_SECONDS = 60;
+
+	private final VirgilCrypto crypto;
+
+	private final KeysType keysType;
+
+	private final int size;
+
+	private final BlockingQueue<KeyPair> keyPairs;
+
+	private final ThreadPoolExecutor executor;
+
+	private final AtomicBoolean refilling = new AtomicBoolean();
+
+	private volatile boolean closed;
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final AtomicLong refillCount = new AtomicLong();
+
+	private final AtomicLong refillTime = new AtomicLong();
+
+	private final AtomicLong maxRefillTime = new AtomicLong();
+
+	/**
+	 * Create a new instance of {@code KeyPairPool} and start filling it.
+	 *
+	 * @param crypto
+	 *            the crypto which generates key pairs.
+	 * @param keysType
+	 *            the type of pooled key pairs.
+	 * @param size
+	 *            the number of key pairs kept ready.
+	 */
+	KeyPairPool(VirgilCrypto crypto, final KeysType keysType, int size) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("size");
+		}
+		this.crypto = crypto;
+		this.keysType = keysType;
+		this.size = size;
+		this.keyPairs = new ArrayBlockingQueue<>(size);
+
+		this.executor = new ThreadPoolExecutor(1, 1, THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "virgil-key-pair-pool-" + keysType);
+						thread.setDaemon(true);
+						thread.setPriority(Thread.MIN_PRIORITY);
+						return thread;
+					}
+				});
+		this.executor.allowCoreThreadTimeOut(true);
+
+		refill();
+	}
+
+	/**
+	 * Takes a key pair from the pool. If the pool is empty, a new key pair is
+	 * generated.
+	 * 
+	 * @return the key pair.
+	 */
+	public KeyPair take() {
+		KeyPair keyPair = keyPairs.poll();
+		if (keyPair != null) {
+			hitCount.incrementAndGet();
+		} else {
+			missCount.incrementAndGet();
+			keyPair = crypto.generateKeyPair(keysType);
+		}
+		refill();
+
+		return keyPair;
+	}
+
+	/**
+	 * Stops refilling and destroys pooled private keys.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		executor.shutdownNow();
+		clear();
+	}
+
+	/**
+	 * @return the type of pooled key pairs.
+	 */
+	public KeysType getKeysType() {
+		return keysType;
+	}
+
+	/**
+	 * @return the number of key pairs kept ready.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the number of key pairs ready to be taken.
+	 */
+	public int getAvailable() {
+		return keyPairs.size();
+	}
+
+	/**
+	 * @return the number of key pairs taken from the pool.
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * @return the number of key pairs generated by caller because the pool was
+	 *         empty.
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * @return the number of key pairs generated in background.
+	 */
+	public long getRefillCount() {
+		return refillCount.get();
+	}
+
+	/**
+	 * @return the average time of key pair generation in background in
+	 *         nanoseconds.
+	 */
+	public long getAverageRefillLatency() {
+		long count = refillCount.get();
+		return count == 0 ? 0 : refillTime.get() / count;
+	}
+
+	/**
+	 * @return the maximum time of key pair generation in background in
+	 *         nanoseconds.
+	 */
+	public long getMaxRefillLatency() {
+		return maxRefillTime.get();
+	}
+
+	private void refill() {
+		if (closed || keyPairs.remainingCapacity() == 0 || !refilling.compareAndSet(false, true)) {
+			return;
+		}
+		Runnable task = new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					while (!closed && keyPairs.remainingCapacity() > 0) {
+						long start = System.nanoTime();
+						KeyPair keyPair = crypto.generateKeyPair(keysType);
+						recordRefill(System.nanoTime() - start);
+
+						if (!keyPairs.offer(keyPair)) {
+							destroy(keyPair);
+							break;
+						}
+					}
+				} catch (RuntimeException e) {
+					// Refill is retried when next key pair is taken
+					return;
+				} finally {
+					refilling.set(false);
+					if (closed) {
+						clear();
+					}
+				}
+				// Key pairs could be taken after loop finished
+				refill();
+			}
+		};
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			// Pool is closed
+			refilling.set(false);
+		}
+	}
+
+	private void recordRefill(long time) {
+		refillCount.incrementAndGet();
+		refillTime.addAndGet(time);
+
+		long max;
+		while ((max = maxRefillTime.get()) < time && !maxRefillTime.compareAndSet(max, time)) {
+			// Retry
+		}
+	}
+
+	private void clear() {
+		KeyPair keyPair;
+		while ((keyPair = keyPairs.poll()) != null) {
+			destroy(keyPair);
+		}
+	}
+
+	private static void destroy(KeyPair keyPair) {
+		PrivateKey privateKey = keyPair.getPrivateKey();
+		if (privateKey instanceof Destroyable) {
+			try {
+				((Destroyable) privateKey).destroy();
+			} catch (DestroyFailedException e) {
+				// Key can't be destroyed, leave it to garbage collector
+			}
+		}
+	}
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.crypto;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A bounded pool of native objects. Objects are reset before they return to
+ * the pool and destroyed when pool is full or closed. Each object is used by
+ * one thread at a time only.
+ *
+ * @author Andrii Iakovenko
+ *
+ * @param <T>
+ *            the type of pooled objects.
+ */
+abstract class NativeObjectPool<T extends AutoCloseable> {
+
+	private final BlockingQueue<T> idle;
+
+	private volatile boolean closed;
+
+	/**
+	 * Create a new instance of {@code NativeObjectPool}
+	 *
+	 * @param size
+	 *            the maximum number of idle objects. Objects are not pooled if
+	 *            size is 0.
+	 */
+	NativeObjectPool(int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.idle = size > 0 ? new ArrayBlockingQueue<T>(size) : null;
+	}
+
+	/**
+	 * Takes an idle object from the pool or creates a new one.
+	 * 
+	 * @return the object.
+	 */
+	T acquire() {
+		if (idle != null) {
+			T object = idle.poll();
+			if (object != null) {
+				return object;
+			}
+		}
+		return create();
+	}
+
+	/**
+	 * Returns the object to the pool.
+	 * 
+	 * @param object
+	 *            the object acquired from this pool.
+	 */
+	void release(T object) {
+		if (idle == null || closed) {
+			destroy(object);
+			return;
+		}
+		try {
+			reset(object);
+		} catch (Exception e) {
+			// Object state is unknown, so don't reuse it
+			destroy(object);
+			return;
+		}
+		if (!idle.offer(object)) {
+			destroy(object);
+		} else if (closed) {
+			// Pool was closed while object returned
+			clear();
+		}
+	}
+
+	/**
+	 * Destroys all idle objects. Objects released after pool is closed are
+	 * destroyed immediately.
+	 */
+	void close() {
+		closed = true;
+		clear();
+	}
+
+	/**
+	 * @return the number of idle objects.
+	 */
+	int getIdleCount() {
+		return idle == null ? 0 : idle.size();
+	}
+
+	/**
+	 * Creates a new object.
+	 * 
+	 * @return the created object.
+	 */
+	protected abstract T create();
+
+	/**
+	 * Resets the object state before it could be used again.
+	 * 
+	 * @param object
+	 *            the object to reset.
+	 */
+	protected abstract void reset(T object);
+
+	private void clear() {
+		if (idle == null) {
+			return;
+		}
+		T object;
+		while ((object = idle.poll()) != null) {
+			destroy(object);
+		}
+	}
+
+	private void destroy(T object) {
+		try {
+			object.close();
+		} catch (Exception e) {
+			// Native object is freed by finalizer anyway
+		}
+	}
+
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.crypto;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Read-only view of decrypted seekable chunked envelope. Only chunks
+ * overlapping the read range are read and decrypted. The last decrypted chunk
+ * is kept, so sequential reads decrypt every chunk once.
+ *
+ * @author Andrii Iakovenko
+ *
+ * @see ChunkedEnvelope
+ */
+final class SeekableEnvelopeChannel implements SeekableByteChannel {
+
+	private final VirgilCrypto crypto;
+
+	private final SeekableByteChannel channel;
+
+	private final PrivateKey ephemeralKey;
+
+	private final int chunkSize;
+
+	private final long dataSize;
+
+	private final long[] chunkOffsets;
+
+	private long position;
+
+	private long cachedIndex = -1;
+
+	private byte[] cachedChunk;
+
+	private boolean open = true;
+
+	/**
+	 * Create a new instance of {@code SeekableEnvelopeChannel}
+	 *
+	 * @param crypto
+	 *            the crypto used for chunks decryption.
+	 * @param channel
+	 *            the channel with seekable envelope.
+	 * @param ephemeralKey
+	 *            the envelope key.
+	 * @param chunkSize
+	 *            the size of data chunk.
+	 * @param dataSize
+	 *            the size of decrypted data.
+	 * @param chunkOffsets
+	 *            the positions of encrypted chunks in channel followed by the
+	 *            end of the last chunk.
+	 */
+	SeekableEnvelopeChannel(VirgilCrypto crypto, SeekableByteChannel channel, PrivateKey ephemeralKey,
+			int chunkSize, long dataSize, long[] chunkOffsets) {
+		this.crypto = crypto;
+		this.channel = channel;
+		this.ephemeralKey = ephemeralKey;
+		this.chunkSize = chunkSize;
+		this.dataSize = dataSize;
+		this.chunkOffsets = chunkOffsets;
+	}
+
+	@Override
+	public synchronized int read(ByteBuffer dst) throws IOException {
+		ensureOpen();
+		if (position >= dataSize) {
+			return -1;
+		}
+		int count = 0;
+		while (dst.hasRemaining() && position < dataSize) {
+			long index = position / chunkSize;
+			byte[] chunk = getChunk(index);
+			int offset = ChunkedEnvelope.CHUNK_HEADER_SIZE + (int) (position - index * chunkSize);
+			int length = Math.min(dst.remaining(), chunk.length - offset);
+			dst.put(chunk, offset, length);
+			position += length;
+			count += length;
+		}
+		return count;
+	}
+
+	@Override
+	public int write(ByteBuffer src) throws IOException {
+		ensureOpen();
+		throw new NonWritableChannelException();
+	}
+
+	@Override
+	public synchronized long position() throws IOException {
+		ensureOpen();
+		return position;
+	}
+
+	@Override
+	public synchronized SeekableByteChannel position(long newPosition) throws IOException {
+		ensureOpen();
+		if (newPosition < 0) {
+			throw new IllegalArgumentException("newPosition");
+		}
+		this.position = newPosition;
+		return this;
+	}
+
+	@Override
+	public long size() throws IOException {
+		ensureOpen();
+		return dataSize;
+	}
+
+	@Override
+	public SeekableByteChannel truncate(long size) throws IOException {
+		ensureOpen();
+		throw new NonWritableChannelException();
+	}
+
+	@Override
+	public synchronized boolean isOpen() {
+		return open;
+	}
+
+	/**
+	 * Closes the channel and the underlying encrypted channel. Envelope key
+	 * and decrypted data are zeroed.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (!open) {
+			return;
+		}
+		open = false;
+		if (cachedChunk != null) {
+			Arrays.fill(cachedChunk, (byte) 0);
+			cachedChunk = null;
+		}
+		ChunkedEnvelope.destroy(ephemeralKey);
+		channel.close();
+	}
+
+	private byte[] getChunk(long index) throws IOException {
+		if (index == cachedIndex) {
+			return cachedChunk;
+		}
+		int i = (int) index;
+		byte[] encryptedChunk = new byte[(int) (chunkOffsets[i + 1] - chunkOffsets[i])];
+		channel.position(chunkOffsets[i]);
+		ChunkedEnvelope.readFully(channel, ByteBuffer.wrap(encryptedChunk));
+
+		boolean last = i == chunkOffsets.length - 2;
+		int length = last ? (int) (dataSize - index * chunkSize) : chunkSize;
+		byte[] chunk = ChunkedEnvelope.decryptChunk(crypto, encryptedChunk, ephemeralKey, index, last, length);
+
+		if (cachedChunk != null) {
+			Arrays.fill(cachedChunk, (byte) 0);
+		}
+		cachedIndex = index;
+		cachedChunk = chunk;
+		return chunk;
+	}
+
+	private void ensureOpen() throws ClosedChannelException {
+		if (!open) {
+			throw new ClosedChannelException();
+		}
+	}
+
+}
@@ -29,11 +29,31 @@
  */
 package com.virgilsecurity.sdk.crypto;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
+import com.virgilsecurity.crypto.VirgilChannelDataSink;
+import com.virgilsecurity.crypto.VirgilChunkCipher;
 import com.virgilsecurity.crypto.VirgilCipher;
 import com.virgilsecurity.crypto.VirgilCustomParams;
 import com.virgilsecurity.crypto.VirgilDataSink;
@@ -41,6 +61,7 @@ import com.virgilsecurity.crypto.VirgilDataSource;
 import com.virgilsecurity.crypto.VirgilHash;
 import com.virgilsecurity.crypto.VirgilHash.Algorithm;
 import com.virgilsecurity.crypto.VirgilKeyPair;
+import com.virgilsecurity.crypto.VirgilMappedDataSource;
 import com.virgilsecurity.crypto.VirgilSigner;
 import com.virgilsecurity.crypto.VirgilStreamCipher;
 import com.virgilsecurity.crypto.VirgilStreamDataSink;
@@ -55,7 +76,9 @@ import com.virgilsecurity.sdk.crypto.exception.VerificationException;
 import com.virgilsecurity.sdk.crypto.exceptions.NullArgumentException;
 
 /**
- * The Virgil's implementation of Crypto.
+ * The Virgil's implementation of Crypto. Native ciphers and signers are reused
+ * between calls, so {@code VirgilCrypto} should be closed when it's not needed
+ * anymore.
  *
  * @author Andrii Iakovenko
  * 
@@ -64,11 +87,71 @@ import com.virgilsecurity.sdk.crypto.exceptions.NullArgumentException;
  * @see PrivateKey
  *
  */
-public class VirgilCrypto implements Crypto {
+public class VirgilCrypto implements Crypto, Closeable {
+
+	/** The default number of idle native ciphers and signers kept for reuse. */
+	public static final int DEFAULT_POOL_SIZE = Runtime.getRuntime().availableProcessors();
+
+	// Smaller batches are not worth splitting between threads
+	private static final int MIN_PARALLEL_BATCH_SIZE = 64;
 
 	private static final Charset UTF8_CHARSET = Charset.forName("UTF-8");
 	private static final byte[] CUSTOM_PARAM_SIGNATURE = "VIRGIL-DATA-SIGNATURE".getBytes(UTF8_CHARSET);
 
+	private final NativeObjectPool<VirgilCipher> cipherPool;
+
+	private final NativeObjectPool<VirgilSigner> signerPool;
+
+	private ForkJoinPool chunkPool;
+
+	private final ConcurrentMap<KeysType, KeyPairPool> keyPairPools = new ConcurrentHashMap<>();
+
+	/**
+	 * Create a new instance of {@code VirgilCrypto} with default pool size.
+	 *
+	 */
+	public VirgilCrypto() {
+		this(DEFAULT_POOL_SIZE);
+	}
+
+	/**
+	 * Create a new instance of {@code VirgilCrypto}
+	 *
+	 * @param poolSize
+	 *            the maximum number of idle native ciphers and signers kept for
+	 *            reuse. If {@code 0}, native objects are created for each call.
+	 */
+	public VirgilCrypto(int poolSize) {
+		if (poolSize < 0) {
+			throw new IllegalArgumentException("poolSize");
+		}
+		this.cipherPool = new NativeObjectPool<VirgilCipher>(poolSize) {
+
+			@Override
+			protected VirgilCipher create() {
+				return new VirgilCipher();
+			}
+
+			@Override
+			protected void reset(VirgilCipher cipher) {
+				cipher.removeAllRecipients();
+				cipher.customParams().clear();
+			}
+		};
+		this.signerPool = new NativeObjectPool<VirgilSigner>(poolSize) {
+
+			@Override
+			protected VirgilSigner create() {
+				return new VirgilSigner();
+			}
+
+			@Override
+			protected void reset(VirgilSigner signer) {
+				// Signer is stateless
+			}
+		};
+	}
+
 	public static VirgilHash createVirgilHash(HashAlgorithm algorithm) {
 		switch (algorithm) {
 		case MD5:
@@ -176,9 +259,58 @@ public class VirgilCrypto implements Crypto {
 	 */
 	@Override
 	public byte[] decrypt(byte[] cipherData, PrivateKey privateKey) {
-		try (VirgilCipher cipher = new VirgilCipher()) {
+		if (ChunkedEnvelope.isEnvelope(cipherData)) {
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			decryptChunked(new ByteArrayInputStream(cipherData), outputStream, privateKey);
+			return outputStream.toByteArray();
+		}
+		return decryptWithKey(cipherData, privateKey);
+	}
+
+	/**
+	 * Decrypt data encrypted with detached content info.
+	 * 
+	 * @param cipherData
+	 *            the encrypted data without content info.
+	 * @param contentInfo
+	 *            the content info.
+	 * @param privateKey
+	 *            the recipients private key.
+	 * @return the decrypted data as byte array.
+	 * 
+	 * @see #encryptDetached(byte[], PublicKey[])
+	 */
+	public byte[] decryptDetached(byte[] cipherData, byte[] contentInfo, PrivateKey privateKey) {
+		if (contentInfo == null) {
+			throw new NullArgumentException("contentInfo");
+		}
+
+		VirgilCipher cipher = cipherPool.acquire();
+		try {
+			cipher.setContentInfo(contentInfo);
 			byte[] decryptedData = cipher.decryptWithKey(cipherData, privateKey.getId(), privateKey.getValue());
 			return decryptedData;
+		} finally {
+			cipherPool.release(cipher);
+		}
+	}
+
+	/**
+	 * Decrypts data encrypted by {@code VirgilCipher}.
+	 * 
+	 * @param cipherData
+	 *            the data to be decrypted.
+	 * @param privateKey
+	 *            the recipient's private key.
+	 * @return the decrypted data.
+	 */
+	byte[] decryptWithKey(byte[] cipherData, PrivateKey privateKey) {
+		VirgilCipher cipher = cipherPool.acquire();
+		try {
+			byte[] decryptedData = cipher.decryptWithKey(cipherData, privateKey.getId(), privateKey.getValue());
+			return decryptedData;
+		} finally {
+			cipherPool.release(cipher);
 		}
 	}
 
@@ -201,6 +333,43 @@ public class VirgilCrypto implements Crypto {
 		}
 	}
 
+	/**
+	 * Decrypts the file. Input file is read through memory mapping. Output
+	 * file is removed if decryption failed.
+	 * 
+	 * @param inputFile
+	 *            the encrypted file.
+	 * @param outputFile
+	 *            the file to write decrypted data to.
+	 * @param privateKey
+	 *            the private key.
+	 * @throws DecryptionException
+	 *             if file couldn't be decrypted.
+	 */
+	public void decryptFile(Path inputFile, Path outputFile, PrivateKey privateKey) throws DecryptionException {
+		if (privateKey == null) {
+			throw new NullArgumentException("privateKey");
+		}
+
+		try (FileChannel inputChannel = FileChannel.open(inputFile, StandardOpenOption.READ)) {
+			boolean success = false;
+			try (FileChannel outputChannel = openOutputFile(outputFile);
+					VirgilStreamCipher cipher = new VirgilStreamCipher();
+					VirgilDataSource dataSource = new VirgilMappedDataSource(inputChannel);
+					VirgilDataSink dataSink = new VirgilChannelDataSink(outputChannel)) {
+
+				cipher.decryptWithKey(dataSource, dataSink, privateKey.getId(), privateKey.getValue());
+				success = true;
+			} finally {
+				if (!success) {
+					deleteQuietly(outputFile);
+				}
+			}
+		} catch (IOException e) {
+			throw new DecryptionException(e);
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -210,7 +379,9 @@ public class VirgilCrypto implements Crypto {
 	 */
 	@Override
 	public byte[] decryptThenVerify(byte[] cipherData, PrivateKey privateKey, PublicKey publicKey) {
-		try (VirgilSigner signer = new VirgilSigner(); VirgilCipher cipher = new VirgilCipher()) {
+		VirgilSigner signer = signerPool.acquire();
+		VirgilCipher cipher = cipherPool.acquire();
+		try {
 			byte[] decryptedData = cipher.decryptWithKey(cipherData, privateKey.getId(), privateKey.getValue());
 			byte[] signature = cipher.customParams().getData(CUSTOM_PARAM_SIGNATURE);
 
@@ -222,6 +393,72 @@ public class VirgilCrypto implements Crypto {
 			return decryptedData;
 		} catch (Exception e) {
 			throw new CryptoException(e.getMessage());
+		} finally {
+			cipherPool.release(cipher);
+			signerPool.release(signer);
+		}
+	}
+
+	/**
+	 * Decrypts the file and verifies the signature of decrypted data. Data is
+	 * decrypted to a temporary file in the output file directory, then the
+	 * temporary file is read again to verify the signature, so memory usage
+	 * doesn't depend on file size. Output file is replaced with verified data
+	 * atomically, so unverified data never appears in it. Output file is not
+	 * changed if decryption failed or signature is not valid.
+	 * 
+	 * @param inputFile
+	 *            the file encrypted with
+	 *            {@link #signThenEncryptFile(Path, Path, PrivateKey, PublicKey...)}
+	 *            or {@link #signThenEncrypt(byte[], PrivateKey, PublicKey[])}.
+	 * @param outputFile
+	 *            the file to write decrypted data to.
+	 * @param privateKey
+	 *            the recipient's private key.
+	 * @param publicKey
+	 *            the signer's public key.
+	 * @throws DecryptionException
+	 *             if file couldn't be decrypted.
+	 * @throws SignatureIsNotValidException
+	 *             if signature is not valid.
+	 */
+	public void decryptThenVerifyFile(Path inputFile, Path outputFile, PrivateKey privateKey, PublicKey publicKey)
+			throws DecryptionException {
+		if (privateKey == null) {
+			throw new NullArgumentException("privateKey");
+		}
+		if (publicKey == null) {
+			throw new NullArgumentException("publicKey");
+		}
+
+		try (FileChannel inputChannel = FileChannel.open(inputFile, StandardOpenOption.READ)) {
+			Path dir = outputFile.toAbsolutePath().getParent();
+			Path tmp = Files.createTempFile(dir, "." + outputFile.getFileName(), ".tmp");
+			try {
+				byte[] signature;
+				try (FileChannel outputChannel = openOutputFile(tmp);
+						VirgilStreamCipher cipher = new VirgilStreamCipher();
+						VirgilDataSource dataSource = new VirgilMappedDataSource(inputChannel);
+						VirgilDataSink dataSink = new VirgilChannelDataSink(outputChannel)) {
+
+					cipher.decryptWithKey(dataSource, dataSink, privateKey.getId(), privateKey.getValue());
+					signature = cipher.customParams().getData(CUSTOM_PARAM_SIGNATURE);
+				}
+
+				try (FileChannel decryptedChannel = FileChannel.open(tmp, StandardOpenOption.READ);
+						VirgilStreamSigner signer = new VirgilStreamSigner();
+						VirgilDataSource dataSource = new VirgilMappedDataSource(decryptedChannel)) {
+
+					if (!signer.verify(dataSource, signature, publicKey.getValue())) {
+						throw new SignatureIsNotValidException();
+					}
+				}
+				Files.move(tmp, outputFile, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				deleteQuietly(tmp);
+			}
+		} catch (IOException e) {
+			throw new DecryptionException(e);
 		}
 	}
 
@@ -233,11 +470,14 @@ public class VirgilCrypto implements Crypto {
 	 */
 	@Override
 	public byte[] encrypt(byte[] data, PublicKey recipient) {
-		try (VirgilCipher cipher = new VirgilCipher()) {
+		VirgilCipher cipher = cipherPool.acquire();
+		try {
 			cipher.addKeyRecipient(recipient.getId(), recipient.getValue());
 
 			byte[] encryptedData = cipher.encrypt(data, true);
 			return encryptedData;
+		} finally {
+			cipherPool.release(cipher);
 		}
 	}
 
@@ -249,14 +489,67 @@ public class VirgilCrypto implements Crypto {
 	 */
 	@Override
 	public byte[] encrypt(byte[] data, PublicKey[] recipients) {
-		try (VirgilCipher cipher = new VirgilCipher()) {
+		VirgilCipher cipher = cipherPool.acquire();
+		try {
 			for (PublicKey recipient : recipients) {
 				cipher.addKeyRecipient(recipient.getId(), recipient.getValue());
 			}
 
 			byte[] encryptedData = cipher.encrypt(data, true);
 			return encryptedData;
+		} finally {
+			cipherPool.release(cipher);
+		}
+	}
+
+	/**
+	 * Encrypt byte array with public key set. Content info is not embedded
+	 * into encrypted data, but returned separately.
+	 * 
+	 * @param data
+	 *            the data to be encrypted.
+	 * @param recipients
+	 *            the recipients public key set.
+	 * @return the encrypted data and its content info.
+	 * 
+	 * @see #decryptDetached(byte[], byte[], PrivateKey)
+	 */
+	public EncryptedData encryptDetached(byte[] data, PublicKey[] recipients) {
+		VirgilCipher cipher = cipherPool.acquire();
+		try {
+			for (PublicKey recipient : recipients) {
+				cipher.addKeyRecipient(recipient.getId(), recipient.getValue());
+			}
+
+			byte[] encryptedData = cipher.encrypt(data, false);
+			return new EncryptedData(cipher.getContentInfo(), encryptedData);
+		} finally {
+			cipherPool.release(cipher);
+		}
+	}
+
+	/**
+	 * Splits encrypted data with embedded content info to content info and
+	 * encrypted data. Could be used to store content info of already
+	 * encrypted data separately.
+	 * 
+	 * @param cipherData
+	 *            the encrypted data with embedded content info.
+	 * @return the encrypted data and its content info.
+	 * @throws CryptoException
+	 *             if data has no embedded content info.
+	 */
+	public EncryptedData detachContentInfo(byte[] cipherData) {
+		if (cipherData == null) {
+			throw new NullArgumentException("cipherData");
+		}
+
+		int contentInfoSize = (int) VirgilCipher.defineContentInfoSize(cipherData);
+		if (contentInfoSize <= 0 || contentInfoSize > cipherData.length) {
+			throw new CryptoException("Content info is not embedded into data");
 		}
+		return new EncryptedData(Arrays.copyOf(cipherData, contentInfoSize),
+				Arrays.copyOfRange(cipherData, contentInfoSize, cipherData.length));
 	}
 
 	/*
@@ -302,6 +595,314 @@ public class VirgilCrypto implements Crypto {
 		}
 	}
 
+	/**
+	 * Encrypts the file for recipients. Input file is read through memory
+	 * mapping. Output file is removed if encryption failed.
+	 * 
+	 * @param inputFile
+	 *            the file to encrypt.
+	 * @param outputFile
+	 *            the file to write encrypted data to.
+	 * @param recipients
+	 *            the recipients public keys.
+	 * @throws EncryptionException
+	 *             if file couldn't be encrypted.
+	 */
+	public void encryptFile(Path inputFile, Path outputFile, PublicKey... recipients) throws EncryptionException {
+		if (recipients == null) {
+			throw new NullArgumentException("recipients");
+		}
+
+		try (FileChannel inputChannel = FileChannel.open(inputFile, StandardOpenOption.READ)) {
+			boolean success = false;
+			try (FileChannel outputChannel = openOutputFile(outputFile);
+					VirgilStreamCipher cipher = new VirgilStreamCipher();
+					VirgilDataSource dataSource = new VirgilMappedDataSource(inputChannel);
+					VirgilDataSink dataSink = new VirgilChannelDataSink(outputChannel)) {
+				for (PublicKey recipient : recipients) {
+					cipher.addKeyRecipient(recipient.getId(), recipient.getValue());
+				}
+
+				cipher.encrypt(dataSource, dataSink, true);
+				success = true;
+			} finally {
+				if (!success) {
+					deleteQuietly(outputFile);
+				}
+			}
+		} catch (IOException e) {
+			throw new EncryptionException(e);
+		}
+	}
+
+	/**
+	 * Encrypts stream data for recipients as chunked envelope with default
+	 * chunk size. Chunks are encrypted in parallel and written in order.
+	 * 
+	 * @param inputStream
+	 *            the input stream to be encrypted.
+	 * @param outputStream
+	 *            the output stream encrypted data written to.
+	 * @param recipients
+	 *            the recipients public keys.
+	 * @throws EncryptionException
+	 *             if encryption failed.
+	 * 
+	 * @see #decryptChunked(InputStream, OutputStream, PrivateKey)
+	 */
+	public void encryptChunked(InputStream inputStream, OutputStream outputStream, PublicKey[] recipients)
+			throws EncryptionException {
+		encryptChunked(inputStream, outputStream, recipients, (int) VirgilChunkCipher.kPreferredChunkSize);
+	}
+
+	/**
+	 * Encrypts stream data for recipients as chunked envelope. Chunks are
+	 * encrypted in parallel and written in order.
+	 * 
+	 * @param inputStream
+	 *            the input stream to be encrypted.
+	 * @param outputStream
+	 *            the output stream encrypted data written to.
+	 * @param recipients
+	 *            the recipients public keys.
+	 * @param chunkSize
+	 *            the size of data encrypted independently. Up to twice the
+	 *            number of processors chunks are kept in memory.
+	 * @throws EncryptionException
+	 *             if encryption failed.
+	 * 
+	 * @see #decryptChunked(InputStream, OutputStream, PrivateKey)
+	 */
+	public void encryptChunked(InputStream inputStream, OutputStream outputStream, PublicKey[] recipients,
+			int chunkSize) throws EncryptionException {
+		if (inputStream == null) {
+			throw new NullArgumentException("inputStream");
+		}
+		if (outputStream == null) {
+			throw new NullArgumentException("outputStream");
+		}
+		if (recipients == null) {
+			throw new NullArgumentException("recipients");
+		}
+
+		ForkJoinPool pool = getChunkPool();
+		try {
+			new ChunkedEnvelope(this, pool, pool.getParallelism()).encrypt(inputStream, outputStream, recipients,
+					chunkSize);
+		} catch (IOException e) {
+			throw new EncryptionException(e);
+		}
+	}
+
+	/**
+	 * Decrypts chunked envelope. Chunks are decrypted in parallel and written
+	 * in order as soon as they are verified, so part of data could be written
+	 * to output stream before modification of the following chunks is
+	 * detected. Seekable envelopes are decrypted as well.
+	 * 
+	 * @param inputStream
+	 *            the input stream with chunked envelope.
+	 * @param outputStream
+	 *            the output stream decrypted data written to.
+	 * @param privateKey
+	 *            the recipient's private key.
+	 * @throws DecryptionException
+	 *             if decryption failed or envelope is modified.
+	 * 
+	 * @see #encryptChunked(InputStream, OutputStream, PublicKey[])
+	 */
+	public void decryptChunked(InputStream inputStream, OutputStream outputStream, PrivateKey privateKey)
+			throws DecryptionException {
+		if (inputStream == null) {
+			throw new NullArgumentException("inputStream");
+		}
+		if (outputStream == null) {
+			throw new NullArgumentException("outputStream");
+		}
+		if (privateKey == null) {
+			throw new NullArgumentException("privateKey");
+		}
+
+		ForkJoinPool pool = getChunkPool();
+		try {
+			new ChunkedEnvelope(this, pool, pool.getParallelism()).decrypt(inputStream, outputStream, privateKey);
+		} catch (IOException e) {
+			throw new DecryptionException(e);
+		}
+	}
+
+	/**
+	 * Encrypts the file for recipients as seekable chunked envelope with
+	 * default chunk size.
+	 * 
+	 * @param inputFile
+	 *            the file to encrypt.
+	 * @param outputFile
+	 *            the file to write encrypted data to.
+	 * @param recipients
+	 *            the recipients public keys.
+	 * @throws EncryptionException
+	 *             if file couldn't be encrypted.
+	 * 
+	 * @see #openSeekable(Path, PrivateKey)
+	 */
+	public void encryptSeekable(Path inputFile, Path outputFile, PublicKey... recipients)
+			throws EncryptionException {
+		encryptSeekable(inputFile, outputFile, recipients, (int) VirgilChunkCipher.kPreferredChunkSize);
+	}
+
+	/**
+	 * Encrypts the file for recipients as seekable chunked envelope. Chunks
+	 * are encrypted in parallel and their index is stored after the envelope
+	 * header, so any range of data could be decrypted without decryption of
+	 * preceding chunks. Output file is removed if encryption failed.
+	 * 
+	 * @param inputFile
+	 *            the file to encrypt.
+	 * @param outputFile
+	 *            the file to write encrypted data to.
+	 * @param recipients
+	 *            the recipients public keys.
+	 * @param chunkSize
+	 *            the size of data encrypted independently. Smaller chunks
+	 *            make random access cheaper but increase envelope size.
+	 * @throws EncryptionException
+	 *             if file couldn't be encrypted.
+	 * 
+	 * @see #openSeekable(Path, PrivateKey)
+	 */
+	public void encryptSeekable(Path inputFile, Path outputFile, PublicKey[] recipients, int chunkSize)
+			throws EncryptionException {
+		if (recipients == null) {
+			throw new NullArgumentException("recipients");
+		}
+
+		ForkJoinPool pool = getChunkPool();
+		try (FileChannel inputChannel = FileChannel.open(inputFile, StandardOpenOption.READ)) {
+			boolean success = false;
+			try (FileChannel outputChannel = openOutputFile(outputFile)) {
+				new ChunkedEnvelope(this, pool, pool.getParallelism()).encryptSeekable(inputChannel, outputChannel,
+						recipients, chunkSize);
+				success = true;
+			} finally {
+				if (!success) {
+					deleteQuietly(outputFile);
+				}
+			}
+		} catch (IOException e) {
+			throw new EncryptionException(e);
+		}
+	}
+
+	/**
+	 * Opens seekable chunked envelope file for reading decrypted data. Only
+	 * chunks overlapping the read range are decrypted.
+	 * 
+	 * @param encryptedFile
+	 *            the file with seekable chunked envelope.
+	 * @param privateKey
+	 *            the recipient's private key.
+	 * @return the read-only channel with decrypted data. Reading from the
+	 *         channel throws {@link DecryptionException} if chunk is modified.
+	 * @throws DecryptionException
+	 *             if file couldn't be read or envelope header is invalid.
+	 * 
+	 * @see #encryptSeekable(Path, Path, PublicKey...)
+	 */
+	public SeekableByteChannel openSeekable(Path encryptedFile, PrivateKey privateKey) throws DecryptionException {
+		if (privateKey == null) {
+			throw new NullArgumentException("privateKey");
+		}
+
+		FileChannel channel = null;
+		boolean success = false;
+		try {
+			channel = FileChannel.open(encryptedFile, StandardOpenOption.READ);
+			SeekableByteChannel decryptedChannel = openSeekable(channel, privateKey);
+			success = true;
+			return decryptedChannel;
+		} catch (IOException e) {
+			throw new DecryptionException(e);
+		} finally {
+			if (!success && channel != null) {
+				try {
+					channel.close();
+				} catch (IOException e) {
+					// Nothing to do
+				}
+			}
+		}
+	}
+
+	/**
+	 * Opens seekable chunked envelope for reading decrypted data. Only chunks
+	 * overlapping the read range are decrypted. Closing the returned channel
+	 * closes the encrypted channel.
+	 * 
+	 * @param encryptedChannel
+	 *            the channel with seekable chunked envelope at its current
+	 *            position.
+	 * @param privateKey
+	 *            the recipient's private key.
+	 * @return the read-only channel with decrypted data. Reading from the
+	 *         channel throws {@link DecryptionException} if chunk is modified.
+	 * @throws DecryptionException
+	 *             if channel couldn't be read or envelope header is invalid.
+	 * 
+	 * @see #encryptSeekable(Path, Path, PublicKey...)
+	 */
+	public SeekableByteChannel openSeekable(SeekableByteChannel encryptedChannel, PrivateKey privateKey)
+			throws DecryptionException {
+		if (encryptedChannel == null) {
+			throw new NullArgumentException("encryptedChannel");
+		}
+		if (privateKey == null) {
+			throw new NullArgumentException("privateKey");
+		}
+
+		ForkJoinPool pool = getChunkPool();
+		try {
+			return new ChunkedEnvelope(this, pool, pool.getParallelism()).openSeekable(encryptedChannel, privateKey);
+		} catch (IOException e) {
+			throw new DecryptionException(e);
+		}
+	}
+
+	/**
+	 * Create recipient set which encrypts many messages for the same
+	 * recipients. Session key is generated and encrypted for recipients once
+	 * and reused until message count or lifetime limit is reached. Encrypted
+	 * session key is included in each message.
+	 * 
+	 * @param recipients
+	 *            the recipients public key set.
+	 * @param maxMessages
+	 *            the number of messages encrypted with the same session key.
+	 * @param sessionLifetime
+	 *            the time in milliseconds session key is used for.
+	 * @return the recipient set.
+	 * 
+	 * @see RecipientSet
+	 */
+	public RecipientSet createRecipientSet(PublicKey[] recipients, int maxMessages, long sessionLifetime) {
+		return new VirgilRecipientSet(this, recipients, maxMessages, sessionLifetime);
+	}
+
+	/**
+	 * Create recipient set with default session key limits.
+	 * 
+	 * @param recipients
+	 *            the recipients public keys.
+	 * @return the recipient set.
+	 * 
+	 * @see VirgilRecipientSet#DEFAULT_MAX_MESSAGES
+	 * @see VirgilRecipientSet#DEFAULT_SESSION_LIFETIME
+	 */
+	public RecipientSet createRecipientSet(PublicKey... recipients) {
+		return createRecipientSet(recipients, VirgilRecipientSet.DEFAULT_MAX_MESSAGES,
+				VirgilRecipientSet.DEFAULT_SESSION_LIFETIME);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -327,9 +928,13 @@ public class VirgilCrypto implements Crypto {
 			return VirgilKeyPair.privateKeyToDER(privateKey.getValue());
 		}
 		byte[] passwordBytes = password.getBytes(UTF8_CHARSET);
-		byte[] encryptedKey = VirgilKeyPair.encryptPrivateKey(privateKey.getValue(), passwordBytes);
+		try {
+			byte[] encryptedKey = VirgilKeyPair.encryptPrivateKey(privateKey.getValue(), passwordBytes);
 
-		return VirgilKeyPair.privateKeyToDER(encryptedKey, passwordBytes);
+			return VirgilKeyPair.privateKeyToDER(encryptedKey, passwordBytes);
+		} finally {
+			zeroize(passwordBytes);
+		}
 	}
 
 	/*
@@ -372,13 +977,64 @@ public class VirgilCrypto implements Crypto {
 	}
 
 	/**
-	 * Generate key pair by type.
+	 * Generate key pair by type. If key pair pool is enabled for this type,
+	 * the key pair is taken from the pool.
 	 * 
 	 * @param keysType
 	 *            the key type.
 	 * @return generated key pair.
 	 */
 	public KeyPair generateKeys(KeysType keysType) {
+		KeyPairPool pool = keyPairPools.get(keysType);
+		if (pool != null) {
+			return pool.take();
+		}
+		return generateKeyPair(keysType);
+	}
+
+	/**
+	 * Enables pool of key pairs generated in background for the key type.
+	 * Previous pool of this type is closed.
+	 * 
+	 * @param keysType
+	 *            the key type.
+	 * @param size
+	 *            the number of key pairs kept ready.
+	 * @return the key pair pool.
+	 */
+	public KeyPairPool enableKeyPairPool(KeysType keysType, int size) {
+		KeyPairPool pool = new KeyPairPool(this, keysType, size);
+		KeyPairPool previous = keyPairPools.put(keysType, pool);
+		if (previous != null) {
+			previous.close();
+		}
+		return pool;
+	}
+
+	/**
+	 * Disables pool of key pairs for the key type and destroys pooled keys.
+	 * 
+	 * @param keysType
+	 *            the key type.
+	 */
+	public void disableKeyPairPool(KeysType keysType) {
+		KeyPairPool pool = keyPairPools.remove(keysType);
+		if (pool != null) {
+			pool.close();
+		}
+	}
+
+	/**
+	 * @param keysType
+	 *            the key type.
+	 * @return the key pair pool for the key type or {@code null} if pool is
+	 *         not enabled.
+	 */
+	public KeyPairPool getKeyPairPool(KeysType keysType) {
+		return keyPairPools.get(keysType);
+	}
+
+	KeyPair generateKeyPair(KeysType keysType) {
 		VirgilKeyPair keyPair = VirgilKeyPair.generate(toVirgilKeyPairType(keysType));
 
 		byte[] keyPairId = this.computePublicKeyHash(keyPair.publicKey());
@@ -411,23 +1067,30 @@ public class VirgilCrypto implements Crypto {
 			throw new NullArgumentException("keyData");
 		}
 
+		byte[] passwordBytes = null;
+		byte[] decryptedKey = null;
 		try {
-			byte[] privateKeyBytes;
+			byte[] value;
 			if (password == null) {
-				privateKeyBytes = VirgilKeyPair.privateKeyToDER(keyData);
+				value = VirgilKeyPair.privateKeyToDER(keyData);
 			} else {
-				privateKeyBytes = VirgilKeyPair.decryptPrivateKey(keyData, password.getBytes(UTF8_CHARSET));
+				// Key derivation runs once here, imported key is not encrypted
+				passwordBytes = password.getBytes(UTF8_CHARSET);
+				decryptedKey = VirgilKeyPair.decryptPrivateKey(keyData, passwordBytes);
+				value = VirgilKeyPair.privateKeyToDER(decryptedKey);
 			}
 
-			byte[] publicKey = VirgilKeyPair.extractPublicKey(privateKeyBytes, new byte[] {});
+			byte[] publicKey = VirgilKeyPair.extractPublicKey(value, new byte[] {});
 
 			byte[] receiverId = computePublicKeyHash(publicKey);
-			byte[] value = VirgilKeyPair.privateKeyToDER(privateKeyBytes);
 			PrivateKey privateKey = new VirgilPrivateKey(receiverId, value);
 
 			return privateKey;
 		} catch (Exception e) {
 			throw new CryptoException(e);
+		} finally {
+			zeroize(passwordBytes);
+			zeroize(decryptedKey);
 		}
 	}
 
@@ -460,12 +1123,46 @@ public class VirgilCrypto implements Crypto {
 			throw new NullArgumentException("privateKey");
 		}
 
-		try (VirgilSigner signer = new VirgilSigner()) {
+		VirgilSigner signer = signerPool.acquire();
+		try {
 			byte[] signature = signer.sign(data, privateKey.getValue());
 			return signature;
+		} finally {
+			signerPool.release(signer);
 		}
 	}
 
+	/**
+	 * Signs each byte array of the list with private key.
+	 * 
+	 * @param data
+	 *            the list of data to be signed.
+	 * @param privateKey
+	 *            the signer's private key.
+	 * @return the signatures in the same order as data.
+	 */
+	public List<byte[]> signBatch(List<byte[]> data, final PrivateKey privateKey) {
+		if (data == null) {
+			throw new NullArgumentException("data");
+		}
+		if (privateKey == null) {
+			throw new NullArgumentException("privateKey");
+		}
+
+		final byte[][] items = toArray(data, "data");
+		final byte[][] signatures = new byte[items.length][];
+		runBatch(items.length, new SignerTask() {
+
+			@Override
+			void run(VirgilSigner signer, int from, int to) {
+				for (int i = from; i < to; i++) {
+					signatures[i] = signer.sign(items[i], privateKey.getValue());
+				}
+			}
+		});
+		return Arrays.asList(signatures);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -512,8 +1209,9 @@ public class VirgilCrypto implements Crypto {
 	 */
 	@Override
 	public byte[] signThenEncrypt(byte[] data, PrivateKey privateKey, PublicKey[] recipients) {
-		try (VirgilSigner signer = new VirgilSigner(); VirgilCipher cipher = new VirgilCipher()) {
-
+		VirgilSigner signer = signerPool.acquire();
+		VirgilCipher cipher = cipherPool.acquire();
+		try {
 			byte[] signature = signer.sign(data, privateKey.getValue());
 
 			VirgilCustomParams customData = cipher.customParams();
@@ -526,6 +1224,70 @@ public class VirgilCrypto implements Crypto {
 
 		} catch (Exception e) {
 			throw new CryptoException(e.getMessage());
+		} finally {
+			cipherPool.release(cipher);
+			signerPool.release(signer);
+		}
+	}
+
+	/**
+	 * Signs the file and encrypts it for recipients. Input file is read twice:
+	 * to calculate the signature and to encrypt the data with the signature
+	 * embedded into content info, so memory usage doesn't depend on file size.
+	 * Encrypted data has the same format as
+	 * {@link #signThenEncrypt(byte[], PrivateKey, PublicKey[])} result. Output
+	 * file is removed if encryption failed.
+	 * 
+	 * @param inputFile
+	 *            the file to sign and encrypt. File shouldn't be modified
+	 *            during encryption.
+	 * @param outputFile
+	 *            the file to write encrypted data to.
+	 * @param privateKey
+	 *            the signer's private key.
+	 * @param recipients
+	 *            the recipients public keys.
+	 * @throws EncryptionException
+	 *             if file couldn't be signed or encrypted.
+	 */
+	public void signThenEncryptFile(Path inputFile, Path outputFile, PrivateKey privateKey, PublicKey... recipients)
+			throws EncryptionException {
+		if (privateKey == null) {
+			throw new NullArgumentException("privateKey");
+		}
+		if (recipients == null) {
+			throw new NullArgumentException("recipients");
+		}
+
+		try {
+			byte[] signature;
+			try (FileChannel inputChannel = FileChannel.open(inputFile, StandardOpenOption.READ);
+					VirgilStreamSigner signer = new VirgilStreamSigner();
+					VirgilDataSource dataSource = new VirgilMappedDataSource(inputChannel)) {
+				signature = signer.sign(dataSource, privateKey.getValue());
+			}
+
+			try (FileChannel inputChannel = FileChannel.open(inputFile, StandardOpenOption.READ)) {
+				boolean success = false;
+				try (FileChannel outputChannel = openOutputFile(outputFile);
+						VirgilStreamCipher cipher = new VirgilStreamCipher();
+						VirgilDataSource dataSource = new VirgilMappedDataSource(inputChannel);
+						VirgilDataSink dataSink = new VirgilChannelDataSink(outputChannel)) {
+					cipher.customParams().setData(CUSTOM_PARAM_SIGNATURE, signature);
+					for (PublicKey recipient : recipients) {
+						cipher.addKeyRecipient(recipient.getId(), recipient.getValue());
+					}
+
+					cipher.encrypt(dataSource, dataSink, true);
+					success = true;
+				} finally {
+					if (!success) {
+						deleteQuietly(outputFile);
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new EncryptionException(e);
 		}
 	}
 
@@ -547,14 +1309,65 @@ public class VirgilCrypto implements Crypto {
 			throw new NullArgumentException("signer");
 		}
 
-		try (VirgilSigner virgilSigner = new VirgilSigner()) {
+		VirgilSigner virgilSigner = signerPool.acquire();
+		try {
 			boolean valid = virgilSigner.verify(data, signature, signer.getValue());
 			return valid;
 		} catch (Exception e) {
 			throw new VerificationException(e);
+		} finally {
+			signerPool.release(virgilSigner);
 		}
 	}
 
+	/**
+	 * Verifies each byte array of the list with corresponding signature.
+	 * 
+	 * @param data
+	 *            the list of data to be verified.
+	 * @param signatures
+	 *            the signatures in the same order as data.
+	 * @param signer
+	 *            the signer's public key.
+	 * @return the verification results in the same order as data.
+	 * @throws VerificationException
+	 *             if any signature couldn't be verified.
+	 */
+	public List<Boolean> verifyBatch(List<byte[]> data, List<byte[]> signatures, final PublicKey signer) {
+		if (data == null) {
+			throw new NullArgumentException("data");
+		}
+		if (signatures == null) {
+			throw new NullArgumentException("signatures");
+		}
+		if (signer == null) {
+			throw new NullArgumentException("signer");
+		}
+		if (data.size() != signatures.size()) {
+			throw new IllegalArgumentException("Number of signatures doesn't match number of data items");
+		}
+
+		final byte[][] items = toArray(data, "data");
+		final byte[][] signatureItems = toArray(signatures, "signatures");
+		final Boolean[] results = new Boolean[items.length];
+		try {
+			runBatch(items.length, new SignerTask() {
+
+				@Override
+				void run(VirgilSigner virgilSigner, int from, int to) {
+					for (int i = from; i < to; i++) {
+						results[i] = virgilSigner.verify(items[i], signatureItems[i], signer.getValue());
+					}
+				}
+			});
+		} catch (VerificationException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new VerificationException(e);
+		}
+		return Arrays.asList(results);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -581,4 +1394,127 @@ public class VirgilCrypto implements Crypto {
 			throw new VerificationException(e);
 		}
 	}
+
+	private static void zeroize(byte[] data) {
+		if (data != null) {
+			Arrays.fill(data, (byte) 0);
+		}
+	}
+
+	private static byte[][] toArray(List<byte[]> list, String name) {
+		byte[][] items = list.toArray(new byte[list.size()][]);
+		for (byte[] item : items) {
+			if (item == null) {
+				throw new NullArgumentException(name);
+			}
+		}
+		return items;
+	}
+
+	/**
+	 * Runs the task for batch items. Large batches are split to parts
+	 * processed in parallel, each part with its own signer.
+	 */
+	private void runBatch(int size, final SignerTask task) {
+		ForkJoinPool pool = size < MIN_PARALLEL_BATCH_SIZE ? null : getChunkPool();
+		int parts = pool == null ? 1 : Math.min(pool.getParallelism(), size / (MIN_PARALLEL_BATCH_SIZE / 2));
+		if (parts <= 1) {
+			task.runWithSigner(0, size);
+			return;
+		}
+
+		int partSize = (size + parts - 1) / parts;
+		List<Future<Void>> futures = new ArrayList<>(parts);
+		try {
+			for (int from = 0; from < size; from += partSize) {
+				final int partFrom = from;
+				final int partTo = Math.min(size, from + partSize);
+				futures.add(pool.submit(new Callable<Void>() {
+
+					@Override
+					public Void call() {
+						task.runWithSigner(partFrom, partTo);
+						return null;
+					}
+				}));
+			}
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new CryptoException(cause);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CryptoException(e);
+		} finally {
+			for (Future<Void> future : futures) {
+				future.cancel(false);
+			}
+		}
+	}
+
+	private synchronized ForkJoinPool getChunkPool() {
+		if (chunkPool == null) {
+			chunkPool = new ForkJoinPool();
+		}
+		return chunkPool;
+	}
+
+	private static FileChannel openOutputFile(Path file) throws IOException {
+		return FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+	}
+
+	private static void deleteQuietly(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			// Nothing to do
+		}
+	}
+
+	/**
+	 * Frees native ciphers and signers kept for reuse, stops chunks processing
+	 * threads and disables key pair pools. {@code VirgilCrypto} still could be
+	 * used after close, but native objects are not reused anymore.
+	 */
+	@Override
+	public void close() {
+		cipherPool.close();
+		signerPool.close();
+		for (KeysType keysType : keyPairPools.keySet()) {
+			disableKeyPairPool(keysType);
+		}
+		synchronized (this) {
+			if (chunkPool != null) {
+				chunkPool.shutdown();
+				chunkPool = null;
+			}
+		}
+	}
+
+	/**
+	 * Part of batch processed with a single signer.
+	 */
+	private abstract class SignerTask {
+
+		abstract void run(VirgilSigner signer, int from, int to);
+
+		void runWithSigner(int from, int to) {
+			VirgilSigner signer = signerPool.acquire();
+			try {
+				run(signer, from, to);
+			} finally {
+				signerPool.release(signer);
+			}
+		}
+	}
+
 }
@@ -29,17 +29,22 @@
  */
 package com.virgilsecurity.sdk.crypto;
 
+import java.io.Closeable;
 import java.io.Serializable;
+import java.util.Arrays;
+
+import javax.security.auth.Destroyable;
 
 /**
- * A private key.
+ * A private key. Key value is kept in memory until the key is destroyed, so
+ * the key should be closed as soon as it's not needed anymore.
  * 
  * @see VirgilCrypto
  * @see VirgilPublicKey
  * 
  * @author Andrii Iakovenko
  */
-public class VirgilPrivateKey implements PrivateKey, Serializable {
+public class VirgilPrivateKey implements PrivateKey, Serializable, Destroyable, Closeable {
 
 	private static final long serialVersionUID = -3437950195416086773L;
 
@@ -48,6 +53,8 @@ public class VirgilPrivateKey implements PrivateKey, Serializable {
 	/** The Private key value */
 	private byte[] value;
 
+	private transient volatile boolean destroyed;
+
 	/**
 	 * Create a new instance of {@code VirgilPrivateKey}
 	 *
@@ -91,6 +98,9 @@ public class VirgilPrivateKey implements PrivateKey, Serializable {
 	 * @see com.virgilsecurity.sdk.crypto.PrivateKey#getValue()
 	 */
 	public byte[] getValue() {
+		if (destroyed) {
+			throw new IllegalStateException("Private key is destroyed");
+		}
 		return value;
 	}
 
@@ -102,4 +112,35 @@ public class VirgilPrivateKey implements PrivateKey, Serializable {
 		this.value = value;
 	}
 
+	/**
+	 * Zeroes the key value. Key can't be used after it's destroyed.
+	 */
+	@Override
+	public void destroy() {
+		destroyed = true;
+		if (value != null) {
+			Arrays.fill(value, (byte) 0);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see javax.security.auth.Destroyable#isDestroyed()
+	 */
+	@Override
+	public boolean isDestroyed() {
+		return destroyed;
+	}
+
+	/**
+	 * Destroys the key.
+	 * 
+	 * @see #destroy()
+	 */
+	@Override
+	public void close() {
+		destroy();
+	}
+
 }
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.crypto;
+
+import java.util.concurrent.TimeUnit;
+
+import com.virgilsecurity.sdk.crypto.exceptions.EmptyArgumentException;
+import com.virgilsecurity.sdk.crypto.exceptions.NullArgumentException;
+
+/**
+ * The Virgil's implementation of RecipientSet.
+ * 
+ * <p>
+ * Each session has a random ephemeral key pair. The ephemeral private key is
+ * encrypted for all recipients once, and messages are encrypted for the
+ * ephemeral public key only. Message is a chunked envelope with a single
+ * chunk, so it is decrypted with {@link VirgilCrypto#decrypt(byte[], PrivateKey)}.
+ * The encrypted ephemeral private key is copied to the header of each
+ * message, so messages are self-contained, but their size still grows with
+ * the number of recipients. Session ephemeral private key is not kept after
+ * the header is encrypted.
+ * </p>
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class VirgilRecipientSet implements RecipientSet {
+
+	/** The default number of messages encrypted with the same session key. */
+	public static final int DEFAULT_MAX_MESSAGES = 1000;
+
+	/** The default session key lifetime in milliseconds. */
+	public static final long DEFAULT_SESSION_LIFETIME = TimeUnit.HOURS.toMillis(1);
+
+	private final VirgilCrypto crypto;
+
+	private final PublicKey[] recipients;
+
+	private final int maxMessages;
+
+	private final long sessionLifetimeNanos;
+
+	private Session session;
+
+	private long sessionCount;
+
+	/**
+	 * Create a new instance of {@code VirgilRecipientSet}
+	 *
+	 * @param crypto
+	 *            the crypto.
+	 * @param recipients
+	 *            the recipients public keys.
+	 * @param maxMessages
+	 *            the number of messages encrypted with the same session key.
+	 * @param sessionLifetime
+	 *            the time in milliseconds session key is used for.
+	 */
+	VirgilRecipientSet(VirgilCrypto crypto, PublicKey[] recipients, int maxMessages, long sessionLifetime) {
+		if (recipients == null) {
+			throw new NullArgumentException("recipients");
+		}
+		if (recipients.length == 0) {
+			throw new EmptyArgumentException("recipients");
+		}
+		if (maxMessages <= 0) {
+			throw new IllegalArgumentException("maxMessages");
+		}
+		if (sessionLifetime <= 0) {
+			throw new IllegalArgumentException("sessionLifetime");
+		}
+		this.crypto = crypto;
+		this.recipients = recipients.clone();
+		this.maxMessages = maxMessages;
+		this.sessionLifetimeNanos = TimeUnit.MILLISECONDS.toNanos(sessionLifetime);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.virgilsecurity.sdk.crypto.RecipientSet#encrypt(byte[])
+	 */
+	@Override
+	public byte[] encrypt(byte[] data) {
+		if (data == null) {
+			throw new NullArgumentException("data");
+		}
+		Session current = nextSession();
+		return ChunkedEnvelope.encryptMessage(crypto, current.header, current.publicKey, data);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.virgilsecurity.sdk.crypto.RecipientSet#getRecipients()
+	 */
+	@Override
+	public PublicKey[] getRecipients() {
+		return recipients.clone();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.virgilsecurity.sdk.crypto.RecipientSet#rotate()
+	 */
+	@Override
+	public synchronized void rotate() {
+		session = null;
+	}
+
+	/**
+	 * @return the number of session keys generated.
+	 */
+	public synchronized long getSessionCount() {
+		return sessionCount;
+	}
+
+	/**
+	 * Returns the current session, or starts a new one when the current
+	 * session key is exhausted, and counts the message.
+	 */
+	private synchronized Session nextSession() {
+		long now = System.nanoTime();
+		if (session == null || session.messageCount >= maxMessages
+				|| now - session.startTime >= sessionLifetimeNanos) {
+			KeyPair ephemeralKeys = crypto.generateKeys();
+			byte[] header = ChunkedEnvelope.encryptHeader(crypto, ephemeralKeys.getPrivateKey(), recipients);
+			ChunkedEnvelope.destroy(ephemeralKeys.getPrivateKey());
+			session = new Session(header, ephemeralKeys.getPublicKey(), now);
+			sessionCount++;
+		}
+		session.messageCount++;
+		return session;
+	}
+
+	private static class Session {
+		private final byte[] header;
+		private final PublicKey publicKey;
+		private final long startTime;
+		private int messageCount;
+
+		Session(byte[] header, PublicKey publicKey, long startTime) {
+			this.header = header;
+			this.publicKey = publicKey;
+			this.startTime = startTime;
+		}
+	}
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link VirgilChannelDataSource}
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class VirgilChannelDataSourceTest {
+
+	@Test
+	public void read() throws IOException {
+		byte[] data = new byte[10 * 1024 + 7];
+		new Random().nextBytes(data);
+
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		try (VirgilChannelDataSource source = new VirgilChannelDataSource(
+				Channels.newChannel(new ByteArrayInputStream(data)), 1024);
+				VirgilChannelDataSink sink = new VirgilChannelDataSink(Channels.newChannel(os))) {
+			byte[] previousChunk = null;
+			while (source.hasData()) {
+				byte[] chunk = source.read();
+				assertTrue(chunk.length <= 1024);
+				if (chunk.length == 1024) {
+					// Full chunks are read into the same buffer
+					if (previousChunk != null) {
+						assertSame(previousChunk, chunk);
+					}
+					previousChunk = chunk;
+				}
+				assertTrue(sink.isGood());
+				sink.write(chunk);
+			}
+		}
+		assertArrayEquals(data, os.toByteArray());
+	}
+
+}
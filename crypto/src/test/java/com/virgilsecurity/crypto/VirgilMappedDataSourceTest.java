@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link VirgilMappedDataSource}
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class VirgilMappedDataSourceTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private byte[] data;
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		data = new byte[10 * 1024 + 7];
+		new Random().nextBytes(data);
+
+		file = folder.newFile();
+		Files.write(file.toPath(), data);
+	}
+
+	@Test
+	public void read() throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+				VirgilMappedDataSource source = new VirgilMappedDataSource(channel, 1000, 3000)) {
+			while (source.hasData()) {
+				byte[] chunk = source.read();
+				assertTrue(chunk.length > 0 && chunk.length <= 1000);
+				os.write(chunk);
+			}
+		}
+		assertArrayEquals(data, os.toByteArray());
+	}
+
+	@Test
+	public void read_fromPosition() throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			channel.position(100);
+			try (VirgilMappedDataSource source = new VirgilMappedDataSource(channel)) {
+				while (source.hasData()) {
+					os.write(source.read());
+				}
+			}
+		}
+		assertEquals(data.length - 100, os.size());
+	}
+
+	@Test
+	public void hasData_emptyFile() throws IOException {
+		try (FileChannel channel = FileChannel.open(folder.newFile().toPath(), StandardOpenOption.READ);
+				VirgilMappedDataSource source = new VirgilMappedDataSource(channel)) {
+			assertFalse(source.hasData());
+		}
+	}
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.virgilsecurity.sdk.crypto.KeyPair;
+import com.virgilsecurity.sdk.crypto.VirgilCrypto;
+
+/**
+ * Unit tests for {@link VirgilStreamDataSource}
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class VirgilStreamDataSourceTest {
+
+	private byte[] data;
+
+	@Before
+	public void setUp() {
+		data = new byte[100 * 1024 + 7];
+		new Random().nextBytes(data);
+	}
+
+	@Test
+	public void read() throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		try (VirgilStreamDataSource source = new VirgilStreamDataSource(new SlowInputStream(data), 1000)) {
+			while (source.hasData()) {
+				byte[] chunk = source.read();
+				assertTrue(chunk.length <= 1000);
+				os.write(chunk);
+			}
+		}
+		assertArrayEquals(data, os.toByteArray());
+	}
+
+	@Test
+	public void read_reusedBuffer() throws IOException {
+		try (VirgilStreamDataSource source = new VirgilStreamDataSource(new ByteArrayInputStream(data), 1024)) {
+			assertTrue(source.hasData());
+			byte[] chunk = source.read();
+			assertEquals(1024, chunk.length);
+
+			assertTrue(source.hasData());
+			assertSame(chunk, source.read());
+		}
+	}
+
+	@Test
+	public void hasData_emptyStream() throws IOException {
+		try (VirgilStreamDataSource source = new VirgilStreamDataSource(new ByteArrayInputStream(new byte[0]))) {
+			assertFalse(source.hasData());
+		}
+	}
+
+	@Test
+	public void encrypt_streamWithoutAvailable() throws Exception {
+		VirgilCrypto crypto = new VirgilCrypto();
+		KeyPair keyPair = crypto.generateKeys();
+
+		ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+		crypto.encrypt(new SlowInputStream(data), encrypted, keyPair.getPublicKey());
+
+		ByteArrayOutputStream decrypted = new ByteArrayOutputStream();
+		crypto.decrypt(new SlowInputStream(encrypted.toByteArray()), decrypted, keyPair.getPrivateKey());
+
+		assertArrayEquals(data, decrypted.toByteArray());
+	}
+
+	/**
+	 * Input stream which behaves like a network stream: nothing is available
+	 * without blocking and data is returned by small portions.
+	 */
+	private static class SlowInputStream extends FilterInputStream {
+
+		SlowInputStream(byte[] data) {
+			super(new ByteArrayInputStream(data));
+		}
+
+		@Override
+		public int available() {
+			return 0;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			return super.read(b, off, Math.min(len, 100));
+		}
+	}
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.virgilsecurity.sdk.crypto.exception.DecryptionException;
+
+/**
+ * Unit tests for {@link ChunkedEnvelope}
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class ChunkedEnvelopeTest {
+
+	private static final int CHUNK_SIZE = 100;
+
+	private VirgilCrypto crypto;
+	private KeyPair keyPair;
+	private byte[] data;
+	private byte[] envelope;
+
+	@Before
+	public void setUp() {
+		crypto = new VirgilCrypto();
+		keyPair = crypto.generateKeys();
+
+		data = new byte[CHUNK_SIZE * 3 + 10];
+		new Random().nextBytes(data);
+
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		crypto.encryptChunked(new ByteArrayInputStream(data), os, new PublicKey[] { keyPair.getPublicKey() },
+				CHUNK_SIZE);
+		envelope = os.toByteArray();
+	}
+
+	@After
+	public void tearDown() {
+		crypto.close();
+	}
+
+	@Test
+	public void decrypt() {
+		assertArrayEquals(data, decrypt(envelope));
+	}
+
+	@Test(expected = DecryptionException.class)
+	public void decrypt_notEnvelope() {
+		decrypt(crypto.encrypt(data, keyPair.getPublicKey()));
+	}
+
+	@Test(expected = DecryptionException.class)
+	public void decrypt_unsupportedVersion() {
+		byte[] modified = envelope.clone();
+		modified[ChunkedEnvelope.MAGIC.length] = 100;
+		decrypt(modified);
+	}
+
+	@Test(expected = DecryptionException.class)
+	public void decrypt_truncated() throws IOException {
+		int[] offsets = chunkOffsets();
+		decrypt(Arrays.copyOf(envelope, offsets[offsets.length - 1]));
+	}
+
+	@Test(expected = DecryptionException.class)
+	public void decrypt_truncatedChunk() throws IOException {
+		int[] offsets = chunkOffsets();
+		decrypt(Arrays.copyOf(envelope, offsets[offsets.length - 1] + 10));
+	}
+
+	@Test(expected = DecryptionException.class)
+	public void decrypt_partialLength() {
+		// Trailing bytes are not a complete chunk length
+		decrypt(Arrays.copyOf(envelope, envelope.length + 2));
+	}
+
+	@Test(expected = DecryptionException.class)
+	public void decrypt_reordered() throws IOException {
+		int[] offsets = chunkOffsets();
+		// Swap first and second chunks
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		os.write(envelope, 0, offsets[0]);
+		os.write(envelope, offsets[1], offsets[2] - offsets[1]);
+		os.write(envelope, offsets[0], offsets[1] - offsets[0]);
+		os.write(envelope, offsets[2], envelope.length - offsets[2]);
+		decrypt(os.toByteArray());
+	}
+
+	@Test(expected = DecryptionException.class)
+	public void decrypt_chunkAppended() throws IOException {
+		int[] offsets = chunkOffsets();
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		os.write(envelope);
+		os.write(envelope, offsets[0], offsets[1] - offsets[0]);
+		decrypt(os.toByteArray());
+	}
+
+	@Test(expected = DecryptionException.class)
+	public void decrypt_modified() {
+		byte[] modified = envelope.clone();
+		modified[modified.length - 1] ^= 1;
+		decrypt(modified);
+	}
+
+	private byte[] decrypt(byte[] envelope) {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		crypto.decryptChunked(new ByteArrayInputStream(envelope), os, keyPair.getPrivateKey());
+		return os.toByteArray();
+	}
+
+	/**
+	 * @return offsets of all chunks in envelope.
+	 */
+	private int[] chunkOffsets() throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(envelope));
+		int offset = ChunkedEnvelope.MAGIC.length + 1;
+		in.skipBytes(offset);
+		int headerLength = in.readInt();
+		in.skipBytes(headerLength);
+		offset += 4 + headerLength;
+
+		int[] offsets = new int[4];
+		for (int i = 0; i < offsets.length; i++) {
+			offsets[i] = offset;
+			int length = ByteBuffer.wrap(envelope, offset, 4).getInt();
+			offset += 4 + length;
+		}
+		return offsets;
+	}
+
+}
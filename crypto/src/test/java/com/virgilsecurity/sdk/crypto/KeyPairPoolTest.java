@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link KeyPairPool}
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class KeyPairPoolTest {
+
+	private static final long TIMEOUT = 30000;
+
+	private VirgilCrypto crypto;
+
+	@Before
+	public void setUp() {
+		crypto = new VirgilCrypto();
+	}
+
+	@After
+	public void tearDown() {
+		crypto.close();
+	}
+
+	@Test
+	public void generateKeys() throws InterruptedException {
+		KeyPairPool pool = crypto.enableKeyPairPool(KeysType.Default, 2);
+		assertSame(pool, crypto.getKeyPairPool(KeysType.Default));
+		awaitFull(pool);
+
+		KeyPair keyPair = crypto.generateKeys();
+		assertEquals(1, pool.getHitCount());
+		assertEquals(0, pool.getMissCount());
+		assertTrue(pool.getRefillCount() >= 2);
+		assertTrue(pool.getAverageRefillLatency() > 0);
+		assertTrue(pool.getMaxRefillLatency() >= pool.getAverageRefillLatency());
+
+		// Pooled key pair is usable
+		byte[] data = "data".getBytes();
+		byte[] signature = crypto.sign(data, keyPair.getPrivateKey());
+		assertTrue(crypto.verify(data, signature, keyPair.getPublicKey()));
+		assertArrayEquals(keyPair.getPublicKey().getValue(), crypto.extractPublicKey(keyPair.getPrivateKey()).getValue());
+
+		// Taken key pair is replaced
+		awaitFull(pool);
+	}
+
+	@Test
+	public void generateKeys_anotherType() {
+		crypto.enableKeyPairPool(KeysType.Default, 1);
+
+		assertNotNull(crypto.generateKeys(KeysType.EC_SECP256R1));
+		assertNull(crypto.getKeyPairPool(KeysType.EC_SECP256R1));
+		assertEquals(0, crypto.getKeyPairPool(KeysType.Default).getHitCount());
+	}
+
+	@Test
+	public void take_closed() throws InterruptedException {
+		KeyPairPool pool = crypto.enableKeyPairPool(KeysType.Default, 1);
+		awaitFull(pool);
+		pool.close();
+
+		assertEquals(0, pool.getAvailable());
+		assertNotNull(pool.take());
+		assertEquals(0, pool.getHitCount());
+		assertEquals(1, pool.getMissCount());
+	}
+
+	@Test
+	public void disable() throws InterruptedException {
+		KeyPairPool pool = crypto.enableKeyPairPool(KeysType.Default, 1);
+		awaitFull(pool);
+		KeyPair pooledKeyPair = crypto.generateKeys();
+		awaitFull(pool);
+
+		crypto.disableKeyPairPool(KeysType.Default);
+		assertNull(crypto.getKeyPairPool(KeysType.Default));
+		assertEquals(0, pool.getAvailable());
+
+		crypto.generateKeys();
+		assertEquals(1, pool.getHitCount());
+
+		// Taken key pairs are not destroyed
+		assertNotNull(pooledKeyPair.getPrivateKey().getValue());
+	}
+
+	private static void awaitFull(KeyPairPool pool) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + TIMEOUT;
+		while (pool.getAvailable() < pool.getSize()) {
+			assertTrue("Pool is not filled", System.currentTimeMillis() < deadline);
+			Thread.sleep(10);
+		}
+	}
+
+}
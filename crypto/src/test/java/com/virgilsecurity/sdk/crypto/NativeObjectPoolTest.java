@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.crypto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link NativeObjectPool}
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class NativeObjectPoolTest {
+
+	private NativeObjectPool<TestObject> pool;
+
+	@Before
+	public void setUp() {
+		pool = new TestObjectPool(1);
+	}
+
+	@Test
+	public void acquire_reused() {
+		TestObject object = pool.acquire();
+		object.dirty = true;
+		pool.release(object);
+
+		TestObject reused = pool.acquire();
+		assertSame(object, reused);
+		assertFalse(reused.dirty);
+		assertFalse(reused.closed);
+	}
+
+	@Test
+	public void release_poolIsFull() {
+		TestObject object1 = pool.acquire();
+		TestObject object2 = pool.acquire();
+		assertNotSame(object1, object2);
+
+		pool.release(object1);
+		pool.release(object2);
+
+		assertEquals(1, pool.getIdleCount());
+		assertFalse(object1.closed);
+		assertTrue(object2.closed);
+	}
+
+	@Test
+	public void release_notPooled() {
+		pool = new TestObjectPool(0);
+		TestObject object = pool.acquire();
+		pool.release(object);
+
+		assertTrue(object.closed);
+		assertNotSame(object, pool.acquire());
+	}
+
+	@Test
+	public void close() {
+		TestObject object1 = pool.acquire();
+		TestObject object2 = pool.acquire();
+		pool.release(object1);
+
+		pool.close();
+		assertTrue(object1.closed);
+		assertEquals(0, pool.getIdleCount());
+
+		pool.release(object2);
+		assertTrue(object2.closed);
+	}
+
+	private static class TestObject implements AutoCloseable {
+		private boolean dirty;
+		private boolean closed;
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+
+	private static class TestObjectPool extends NativeObjectPool<TestObject> {
+
+		TestObjectPool(int size) {
+			super(size);
+		}
+
+		@Override
+		protected TestObject create() {
+			return new TestObject();
+		}
+
+		@Override
+		protected void reset(TestObject object) {
+			object.dirty = false;
+		}
+	}
+
+}
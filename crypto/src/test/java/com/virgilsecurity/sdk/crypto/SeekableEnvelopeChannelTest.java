@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.virgilsecurity.sdk.crypto.exception.DecryptionException;
+
+/**
+ * Unit tests for {@link SeekableEnvelopeChannel}
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class SeekableEnvelopeChannelTest {
+
+	private static final int CHUNK_SIZE = 100;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private VirgilCrypto crypto;
+	private KeyPair keyPair;
+	private byte[] data;
+	private Path encryptedFile;
+
+	@Before
+	public void setUp() throws IOException {
+		crypto = new VirgilCrypto();
+		keyPair = crypto.generateKeys();
+
+		data = new byte[CHUNK_SIZE * 10 + 10];
+		new Random().nextBytes(data);
+		encryptedFile = encrypt(data);
+	}
+
+	@After
+	public void tearDown() {
+		crypto.close();
+	}
+
+	@Test
+	public void read() throws IOException {
+		try (SeekableByteChannel channel = crypto.openSeekable(encryptedFile, keyPair.getPrivateKey())) {
+			assertEquals(data.length, channel.size());
+
+			ByteBuffer buffer = ByteBuffer.allocate(data.length + 1);
+			while (channel.read(buffer) >= 0) {
+				// Read all data
+			}
+			assertEquals(data.length, buffer.position());
+			assertArrayEquals(data, Arrays.copyOf(buffer.array(), data.length));
+			assertEquals(data.length, channel.position());
+		}
+	}
+
+	@Test
+	public void read_randomRanges() throws IOException {
+		Random random = new Random();
+		try (SeekableByteChannel channel = crypto.openSeekable(encryptedFile, keyPair.getPrivateKey())) {
+			for (int i = 0; i < 100; i++) {
+				int from = random.nextInt(data.length);
+				int to = from + random.nextInt(data.length - from) + 1;
+
+				ByteBuffer buffer = ByteBuffer.allocate(to - from);
+				channel.position(from);
+				assertEquals(buffer.capacity(), channel.read(buffer));
+				assertArrayEquals(Arrays.copyOfRange(data, from, to), buffer.array());
+			}
+		}
+	}
+
+	@Test
+	public void read_afterEnd() throws IOException {
+		try (SeekableByteChannel channel = crypto.openSeekable(encryptedFile, keyPair.getPrivateKey())) {
+			channel.position(data.length + 100);
+			assertEquals(-1, channel.read(ByteBuffer.allocate(10)));
+		}
+	}
+
+	@Test
+	public void read_empty() throws IOException {
+		Path file = encrypt(new byte[0]);
+		try (SeekableByteChannel channel = crypto.openSeekable(file, keyPair.getPrivateKey())) {
+			assertEquals(0, channel.size());
+			assertEquals(-1, channel.read(ByteBuffer.allocate(10)));
+		}
+	}
+
+	@Test
+	public void read_modifiedChunk() throws IOException {
+		byte[] envelope = Files.readAllBytes(encryptedFile);
+		envelope[envelope.length - 1] ^= 1;
+		Files.write(encryptedFile, envelope);
+
+		try (SeekableByteChannel channel = crypto.openSeekable(encryptedFile, keyPair.getPrivateKey())) {
+			// Not modified chunks are still readable
+			ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+			channel.read(buffer);
+			assertArrayEquals(Arrays.copyOf(data, CHUNK_SIZE), buffer.array());
+
+			channel.position(data.length - 1);
+			try {
+				channel.read(ByteBuffer.allocate(1));
+				fail();
+			} catch (DecryptionException e) {
+				// Chunk authentication failed
+			}
+		}
+	}
+
+	@Test(expected = DecryptionException.class)
+	public void open_truncated() throws IOException {
+		byte[] envelope = Files.readAllBytes(encryptedFile);
+		Files.write(encryptedFile, Arrays.copyOf(envelope, envelope.length - 1));
+
+		crypto.openSeekable(encryptedFile, keyPair.getPrivateKey());
+	}
+
+	@Test(expected = DecryptionException.class)
+	public void open_notSeekable() throws IOException {
+		crypto.encryptChunked(Files.newInputStream(folder.newFile().toPath()),
+				Files.newOutputStream(encryptedFile), new PublicKey[] { keyPair.getPublicKey() });
+
+		crypto.openSeekable(encryptedFile, keyPair.getPrivateKey());
+	}
+
+	@Test(expected = DecryptionException.class)
+	public void open_wrongKey() {
+		crypto.openSeekable(encryptedFile, crypto.generateKeys().getPrivateKey());
+	}
+
+	@Test
+	public void close() throws IOException {
+		SeekableByteChannel channel = crypto.openSeekable(encryptedFile, keyPair.getPrivateKey());
+		channel.close();
+		assertFalse(channel.isOpen());
+		try {
+			channel.read(ByteBuffer.allocate(10));
+			fail();
+		} catch (ClosedChannelException e) {
+			// Channel is closed
+		}
+	}
+
+	@Test(expected = DecryptionException.class)
+	public void decryptChunked_trailingData() throws IOException {
+		byte[] envelope = Files.readAllBytes(encryptedFile);
+		crypto.decryptChunked(new ByteArrayInputStream(Arrays.copyOf(envelope, envelope.length + 1)),
+				new ByteArrayOutputStream(), keyPair.getPrivateKey());
+	}
+
+	private Path encrypt(byte[] data) throws IOException {
+		Path dataFile = folder.newFile().toPath();
+		Files.write(dataFile, data);
+
+		Path file = folder.newFile().toPath();
+		crypto.encryptSeekable(dataFile, file, new PublicKey[] { keyPair.getPublicKey() }, CHUNK_SIZE);
+		return file;
+	}
+
+}
@@ -30,27 +30,39 @@
 package com.virgilsecurity.sdk.crypto;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.SignatureException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import com.virgilsecurity.crypto.VirgilCipher;
 import com.virgilsecurity.crypto.VirgilHash;
 import com.virgilsecurity.crypto.VirgilKeyPair;
 import com.virgilsecurity.sdk.crypto.exception.CryptoException;
 import com.virgilsecurity.sdk.crypto.exception.DecryptionException;
 import com.virgilsecurity.sdk.crypto.exception.EncryptionException;
+import com.virgilsecurity.sdk.crypto.exception.SignatureIsNotValidException;
 import com.virgilsecurity.sdk.crypto.exception.VerificationException;
 import com.virgilsecurity.sdk.crypto.exceptions.NullArgumentException;
 
@@ -70,6 +82,9 @@ public class VirgilCryptoTest {
 			98, 20, -25, 60, 125, -19, 67, 12, -30, 65, 93, -29, -92, -58, -91, 91, 50, -111, -79, 50, -123, -39, 36,
 			48, -20 };
 
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 	private Crypto crypto;
 
 	@Before
@@ -380,4 +395,349 @@ public class VirgilCryptoTest {
 		assertFalse(valid);
 	}
 
+	@Test
+	public void encrypt_reusedCipher() {
+		VirgilCrypto crypto = new VirgilCrypto(1);
+		KeyPair aliceKeys = crypto.generateKeys();
+		KeyPair bobKeys = crypto.generateKeys();
+
+		byte[] encryptedForAlice = crypto.encrypt(TEXT.getBytes(), aliceKeys.getPublicKey());
+		assertArrayEquals(TEXT.getBytes(), crypto.decrypt(encryptedForAlice, aliceKeys.getPrivateKey()));
+
+		// Recipients of previous call are not kept in reused cipher
+		byte[] encryptedForBob = crypto.encrypt(TEXT.getBytes(), bobKeys.getPublicKey());
+		assertArrayEquals(TEXT.getBytes(), crypto.decrypt(encryptedForBob, bobKeys.getPrivateKey()));
+		try {
+			crypto.decrypt(encryptedForBob, aliceKeys.getPrivateKey());
+			fail();
+		} catch (Exception e) {
+			// Alice is not a recipient
+		}
+
+		byte[] signedAndEncrypted = crypto.signThenEncrypt(TEXT.getBytes(), aliceKeys.getPrivateKey(),
+				bobKeys.getPublicKey());
+		assertArrayEquals(TEXT.getBytes(),
+				crypto.decryptThenVerify(signedAndEncrypted, bobKeys.getPrivateKey(), aliceKeys.getPublicKey()));
+
+		crypto.close();
+
+		// Crypto is still usable after close
+		byte[] signature = crypto.sign(TEXT.getBytes(), aliceKeys.getPrivateKey());
+		assertTrue(crypto.verify(TEXT.getBytes(), signature, aliceKeys.getPublicKey()));
+	}
+
+	@Test
+	public void encryptFile() throws IOException {
+		VirgilCrypto crypto = new VirgilCrypto();
+		KeyPair aliceKeys = crypto.generateKeys();
+		KeyPair bobKeys = crypto.generateKeys();
+
+		byte[] data = new byte[3 * 1024 * 1024 + 1];
+		new Random().nextBytes(data);
+		Path dataFile = folder.newFile().toPath();
+		Files.write(dataFile, data);
+
+		Path encryptedFile = folder.newFile().toPath();
+		crypto.encryptFile(dataFile, encryptedFile, aliceKeys.getPublicKey(), bobKeys.getPublicKey());
+
+		Path decryptedFile = folder.newFile().toPath();
+		crypto.decryptFile(encryptedFile, decryptedFile, bobKeys.getPrivateKey());
+
+		assertArrayEquals(data, Files.readAllBytes(decryptedFile));
+	}
+
+	@Test
+	public void decryptFile_wrongKey() throws IOException {
+		VirgilCrypto crypto = new VirgilCrypto();
+		Path dataFile = folder.newFile().toPath();
+		Files.write(dataFile, TEXT.getBytes());
+
+		Path encryptedFile = folder.newFile().toPath();
+		crypto.encryptFile(dataFile, encryptedFile, crypto.generateKeys().getPublicKey());
+
+		Path decryptedFile = folder.getRoot().toPath().resolve("decrypted");
+		try {
+			crypto.decryptFile(encryptedFile, decryptedFile, crypto.generateKeys().getPrivateKey());
+			fail();
+		} catch (Exception e) {
+			// Output file is removed when decryption failed
+			assertFalse(Files.exists(decryptedFile));
+		}
+	}
+
+	@Test
+	public void encryptChunked() {
+		VirgilCrypto crypto = new VirgilCrypto();
+		KeyPair aliceKeys = crypto.generateKeys();
+		KeyPair bobKeys = crypto.generateKeys();
+		PublicKey[] recipients = new PublicKey[] { aliceKeys.getPublicKey(), bobKeys.getPublicKey() };
+
+		for (int size : new int[] { 0, 1, 1000, 1001, 10 * 1000, 12345 }) {
+			byte[] data = new byte[size];
+			new Random().nextBytes(data);
+
+			ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+			crypto.encryptChunked(new ByteArrayInputStream(data), encrypted, recipients, 1000);
+
+			for (KeyPair keyPair : new KeyPair[] { aliceKeys, bobKeys }) {
+				ByteArrayOutputStream decrypted = new ByteArrayOutputStream();
+				crypto.decryptChunked(new ByteArrayInputStream(encrypted.toByteArray()), decrypted,
+						keyPair.getPrivateKey());
+				assertArrayEquals(data, decrypted.toByteArray());
+			}
+		}
+		crypto.close();
+	}
+
+	@Test
+	public void encryptSeekable() throws IOException {
+		VirgilCrypto crypto = new VirgilCrypto();
+		KeyPair keyPair = crypto.generateKeys();
+
+		byte[] data = new byte[10 * 1000 + 1];
+		new Random().nextBytes(data);
+		Path dataFile = folder.newFile().toPath();
+		Files.write(dataFile, data);
+
+		Path encryptedFile = folder.newFile().toPath();
+		crypto.encryptSeekable(dataFile, encryptedFile, new PublicKey[] { keyPair.getPublicKey() }, 1000);
+
+		try (SeekableByteChannel channel = crypto.openSeekable(encryptedFile, keyPair.getPrivateKey())) {
+			assertEquals(data.length, channel.size());
+
+			ByteBuffer range = ByteBuffer.allocate(1500);
+			channel.position(2500);
+			assertEquals(range.capacity(), channel.read(range));
+			assertArrayEquals(Arrays.copyOfRange(data, 2500, 4000), range.array());
+		}
+
+		ByteArrayOutputStream decrypted = new ByteArrayOutputStream();
+		crypto.decryptChunked(Files.newInputStream(encryptedFile), decrypted, keyPair.getPrivateKey());
+		assertArrayEquals(data, decrypted.toByteArray());
+		crypto.close();
+	}
+
+	@Test
+	public void encryptDetached() {
+		VirgilCrypto crypto = new VirgilCrypto();
+		KeyPair aliceKeys = crypto.generateKeys();
+		KeyPair bobKeys = crypto.generateKeys();
+		byte[] data = TEXT.getBytes();
+
+		EncryptedData encryptedData = crypto.encryptDetached(data,
+				new PublicKey[] { aliceKeys.getPublicKey(), bobKeys.getPublicKey() });
+		assertNotNull(encryptedData.getContentInfo());
+		assertEquals(0, VirgilCipher.defineContentInfoSize(encryptedData.getCipherData()));
+
+		for (KeyPair keyPair : new KeyPair[] { aliceKeys, bobKeys }) {
+			byte[] decryptedData = crypto.decryptDetached(encryptedData.getCipherData(),
+					encryptedData.getContentInfo(), keyPair.getPrivateKey());
+			assertArrayEquals(data, decryptedData);
+		}
+	}
+
+	@Test
+	public void detachContentInfo() {
+		VirgilCrypto crypto = new VirgilCrypto();
+		KeyPair keyPair = crypto.generateKeys();
+		byte[] data = TEXT.getBytes();
+		byte[] cipherData = crypto.encrypt(data, keyPair.getPublicKey());
+
+		EncryptedData encryptedData = crypto.detachContentInfo(cipherData);
+		assertEquals(cipherData.length,
+				encryptedData.getContentInfo().length + encryptedData.getCipherData().length);
+
+		byte[] decryptedData = crypto.decryptDetached(encryptedData.getCipherData(), encryptedData.getContentInfo(),
+				keyPair.getPrivateKey());
+		assertArrayEquals(data, decryptedData);
+	}
+
+	@Test(expected = CryptoException.class)
+	public void detachContentInfo_notEmbedded() {
+		VirgilCrypto crypto = new VirgilCrypto();
+		KeyPair keyPair = crypto.generateKeys();
+		EncryptedData encryptedData = crypto.encryptDetached(TEXT.getBytes(),
+				new PublicKey[] { keyPair.getPublicKey() });
+
+		crypto.detachContentInfo(encryptedData.getCipherData());
+	}
+
+	@Test
+	public void decryptDetached_wrongKey() {
+		VirgilCrypto crypto = new VirgilCrypto();
+		EncryptedData encryptedData = crypto.encryptDetached(TEXT.getBytes(),
+				new PublicKey[] { crypto.generateKeys().getPublicKey() });
+		try {
+			crypto.decryptDetached(encryptedData.getCipherData(), encryptedData.getContentInfo(),
+					crypto.generateKeys().getPrivateKey());
+			fail();
+		} catch (Exception e) {
+			// Recipient not found
+		}
+	}
+
+	@Test
+	public void signBatch() {
+		VirgilCrypto crypto = new VirgilCrypto();
+		KeyPair keyPair = crypto.generateKeys();
+		for (int size : new int[] { 0, 1, 10, 1000 }) {
+			List<byte[]> data = new ArrayList<>();
+			for (int i = 0; i < size; i++) {
+				data.add((TEXT + i).getBytes());
+			}
+
+			List<byte[]> signatures = crypto.signBatch(data, keyPair.getPrivateKey());
+			assertEquals(size, signatures.size());
+			for (int i = 0; i < size; i++) {
+				assertTrue(crypto.verify(data.get(i), signatures.get(i), keyPair.getPublicKey()));
+			}
+		}
+	}
+
+	@Test
+	public void verifyBatch() {
+		VirgilCrypto crypto = new VirgilCrypto();
+		KeyPair keyPair = crypto.generateKeys();
+		List<byte[]> data = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			data.add((TEXT + i).getBytes());
+		}
+		List<byte[]> signatures = new ArrayList<>(crypto.signBatch(data, keyPair.getPrivateKey()));
+		// Signature of another data
+		signatures.set(150, signatures.get(0));
+
+		List<Boolean> results = crypto.verifyBatch(data, signatures, keyPair.getPublicKey());
+		assertEquals(data.size(), results.size());
+		for (int i = 0; i < results.size(); i++) {
+			assertEquals(i != 150, results.get(i));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void verifyBatch_sizeMismatch() {
+		VirgilCrypto crypto = new VirgilCrypto();
+		KeyPair keyPair = crypto.generateKeys();
+		List<byte[]> data = new ArrayList<>();
+		data.add(TEXT.getBytes());
+
+		crypto.verifyBatch(data, new ArrayList<byte[]>(), keyPair.getPublicKey());
+	}
+
+	@Test(expected = NullArgumentException.class)
+	public void signBatch_nullItem() {
+		VirgilCrypto crypto = new VirgilCrypto();
+		List<byte[]> data = new ArrayList<>();
+		data.add(null);
+
+		crypto.signBatch(data, crypto.generateKeys().getPrivateKey());
+	}
+
+	@Test
+	public void privateKey_close() {
+		KeyPair keyPair = crypto.generateKeys();
+		VirgilPrivateKey privateKey = (VirgilPrivateKey) keyPair.getPrivateKey();
+		byte[] value = privateKey.getValue();
+
+		privateKey.close();
+
+		assertTrue(privateKey.isDestroyed());
+		assertArrayEquals(new byte[value.length], value);
+		try {
+			crypto.sign(TEXT.getBytes(), privateKey);
+			fail();
+		} catch (IllegalStateException e) {
+			// Key is destroyed
+		}
+	}
+
+	@Test
+	public void signThenEncryptFile() throws IOException {
+		VirgilCrypto crypto = new VirgilCrypto();
+		KeyPair aliceKeys = crypto.generateKeys();
+		KeyPair bobKeys = crypto.generateKeys();
+
+		byte[] data = new byte[3 * 1024 * 1024 + 1];
+		new Random().nextBytes(data);
+		Path dataFile = folder.newFile().toPath();
+		Files.write(dataFile, data);
+
+		Path encryptedFile = folder.newFile().toPath();
+		crypto.signThenEncryptFile(dataFile, encryptedFile, aliceKeys.getPrivateKey(), bobKeys.getPublicKey());
+
+		Path decryptedFile = folder.newFile().toPath();
+		crypto.decryptThenVerifyFile(encryptedFile, decryptedFile, bobKeys.getPrivateKey(), aliceKeys.getPublicKey());
+		assertArrayEquals(data, Files.readAllBytes(decryptedFile));
+
+		// Same format as in-memory encryption
+		byte[] decryptedData = crypto.decryptThenVerify(Files.readAllBytes(encryptedFile), bobKeys.getPrivateKey(),
+				aliceKeys.getPublicKey());
+		assertArrayEquals(data, decryptedData);
+	}
+
+	@Test
+	public void decryptThenVerifyFile_inMemoryEncrypted() throws IOException {
+		VirgilCrypto crypto = new VirgilCrypto();
+		KeyPair aliceKeys = crypto.generateKeys();
+		KeyPair bobKeys = crypto.generateKeys();
+
+		Path encryptedFile = folder.newFile().toPath();
+		Files.write(encryptedFile,
+				crypto.signThenEncrypt(TEXT.getBytes(), aliceKeys.getPrivateKey(), bobKeys.getPublicKey()));
+
+		Path decryptedFile = folder.newFile().toPath();
+		crypto.decryptThenVerifyFile(encryptedFile, decryptedFile, bobKeys.getPrivateKey(), aliceKeys.getPublicKey());
+		assertArrayEquals(TEXT.getBytes(), Files.readAllBytes(decryptedFile));
+	}
+
+	@Test
+	public void decryptThenVerifyFile_wrongSigner() throws IOException {
+		VirgilCrypto crypto = new VirgilCrypto();
+		KeyPair aliceKeys = crypto.generateKeys();
+		KeyPair bobKeys = crypto.generateKeys();
+
+		Path dataFile = folder.newFile().toPath();
+		Files.write(dataFile, TEXT.getBytes());
+		Path encryptedFile = folder.newFile().toPath();
+		crypto.signThenEncryptFile(dataFile, encryptedFile, aliceKeys.getPrivateKey(), bobKeys.getPublicKey());
+
+		Path decryptedFile = folder.getRoot().toPath().resolve("decrypted");
+		try {
+			crypto.decryptThenVerifyFile(encryptedFile, decryptedFile, bobKeys.getPrivateKey(),
+					bobKeys.getPublicKey());
+			fail();
+		} catch (SignatureIsNotValidException e) {
+			// Unverified data is not left on disk
+			assertFalse(Files.exists(decryptedFile));
+		}
+	}
+
+	@Test
+	public void decryptThenVerifyFile_wrongSignerKeepsOutput() throws IOException {
+		VirgilCrypto crypto = new VirgilCrypto();
+		KeyPair aliceKeys = crypto.generateKeys();
+		KeyPair bobKeys = crypto.generateKeys();
+
+		Path dataFile = folder.newFile().toPath();
+		Files.write(dataFile, TEXT.getBytes());
+		Path encryptedFile = folder.newFile().toPath();
+		crypto.signThenEncryptFile(dataFile, encryptedFile, aliceKeys.getPrivateKey(), bobKeys.getPublicKey());
+
+		Path outputDir = folder.newFolder().toPath();
+		Path decryptedFile = outputDir.resolve("decrypted");
+		Files.write(decryptedFile, "previous".getBytes());
+		try {
+			crypto.decryptThenVerifyFile(encryptedFile, decryptedFile, bobKeys.getPrivateKey(),
+					bobKeys.getPublicKey());
+			fail();
+		} catch (SignatureIsNotValidException e) {
+			assertArrayEquals("previous".getBytes(), Files.readAllBytes(decryptedFile));
+			// Temporary file is removed
+			assertEquals(1, outputDir.toFile().list().length);
+		}
+
+		crypto.decryptThenVerifyFile(encryptedFile, decryptedFile, bobKeys.getPrivateKey(), aliceKeys.getPublicKey());
+		assertArrayEquals(TEXT.getBytes(), Files.readAllBytes(decryptedFile));
+		assertEquals(1, outputDir.toFile().list().length);
+	}
+
 }
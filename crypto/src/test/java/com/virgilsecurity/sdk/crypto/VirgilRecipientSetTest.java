@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2016, Virgil Security, Inc.
+ *
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of virgil nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.virgilsecurity.sdk.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.virgilsecurity.sdk.crypto.exception.DecryptionException;
+
+/**
+ * Unit tests for {@link VirgilRecipientSet}
+ *
+ * @author Andrii Iakovenko
+ *
+ */
+public class VirgilRecipientSetTest {
+
+	private static final byte[] DATA = "Let's try to encrypt this text".getBytes();
+
+	private VirgilCrypto crypto;
+	private KeyPair[] keyPairs;
+	private PublicKey[] recipients;
+
+	@Before
+	public void setUp() {
+		crypto = new VirgilCrypto();
+		keyPairs = new KeyPair[5];
+		recipients = new PublicKey[keyPairs.length];
+		for (int i = 0; i < keyPairs.length; i++) {
+			keyPairs[i] = crypto.generateKeys();
+			recipients[i] = keyPairs[i].getPublicKey();
+		}
+	}
+
+	@After
+	public void tearDown() {
+		crypto.close();
+	}
+
+	@Test
+	public void encrypt() {
+		RecipientSet recipientSet = crypto.createRecipientSet(recipients);
+		for (int i = 0; i < 3; i++) {
+			byte[] cipherData = recipientSet.encrypt(DATA);
+			for (KeyPair keyPair : keyPairs) {
+				assertArrayEquals(DATA, crypto.decrypt(cipherData, keyPair.getPrivateKey()));
+			}
+		}
+	}
+
+	@Test
+	public void encrypt_empty() {
+		RecipientSet recipientSet = crypto.createRecipientSet(recipients);
+		byte[] cipherData = recipientSet.encrypt(new byte[0]);
+		assertEquals(0, crypto.decrypt(cipherData, keyPairs[0].getPrivateKey()).length);
+	}
+
+	@Test
+	public void encrypt_sessionReused() {
+		VirgilRecipientSet recipientSet = (VirgilRecipientSet) crypto.createRecipientSet(recipients, 3,
+				VirgilRecipientSet.DEFAULT_SESSION_LIFETIME);
+
+		byte[] first = recipientSet.encrypt(DATA);
+		byte[] second = recipientSet.encrypt(DATA);
+		assertEquals(1, recipientSet.getSessionCount());
+		// Messages share the envelope header but not encrypted data
+		int headerEnd = ChunkedEnvelope.MAGIC.length + 5
+				+ ByteBuffer.wrap(first, ChunkedEnvelope.MAGIC.length + 1, 4).getInt();
+		assertArrayEquals(Arrays.copyOf(first, headerEnd), Arrays.copyOf(second, headerEnd));
+		assertFalse(Arrays.equals(first, second));
+
+		recipientSet.encrypt(DATA);
+		assertEquals(1, recipientSet.getSessionCount());
+		recipientSet.encrypt(DATA);
+		assertEquals(2, recipientSet.getSessionCount());
+	}
+
+	@Test
+	public void encrypt_sessionExpired() throws InterruptedException {
+		VirgilRecipientSet recipientSet = (VirgilRecipientSet) crypto.createRecipientSet(recipients,
+				VirgilRecipientSet.DEFAULT_MAX_MESSAGES, 1);
+
+		recipientSet.encrypt(DATA);
+		Thread.sleep(10);
+		byte[] cipherData = recipientSet.encrypt(DATA);
+		assertEquals(2, recipientSet.getSessionCount());
+		assertArrayEquals(DATA, crypto.decrypt(cipherData, keyPairs[1].getPrivateKey()));
+	}
+
+	@Test
+	public void rotate() {
+		VirgilRecipientSet recipientSet = (VirgilRecipientSet) crypto.createRecipientSet(recipients);
+
+		recipientSet.encrypt(DATA);
+		recipientSet.rotate();
+		recipientSet.encrypt(DATA);
+		assertEquals(2, recipientSet.getSessionCount());
+	}
+
+	@Test(expected = DecryptionException.class)
+	public void decrypt_notRecipient() {
+		RecipientSet recipientSet = crypto.createRecipientSet(recipients);
+		crypto.decrypt(recipientSet.encrypt(DATA), crypto.generateKeys().getPrivateKey());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void create_invalidMaxMessages() {
+		crypto.createRecipientSet(recipients, 0, VirgilRecipientSet.DEFAULT_SESSION_LIFETIME);
+	}
+
+}